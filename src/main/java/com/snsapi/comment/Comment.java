@@ -1,5 +1,6 @@
 package com.snsapi.comment;
 
+import com.snsapi.config.IdGeneratorAligner;
 import com.snsapi.post.Post;
 import com.snsapi.user.User;
 import jakarta.persistence.*;
@@ -9,6 +10,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -21,15 +23,22 @@ import java.util.Set;
 
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_comment_post_parent_id", columnList = "post_id, parent_id, id"),
+        @Index(name = "idx_comment_parent_id", columnList = "parent_id, id"),
+        @Index(name = "idx_comment_post_path", columnList = "post_id, path")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
-
+@DynamicUpdate
 public class Comment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "comment_id")
+    @TableGenerator(name = "comment_id", table = IdGeneratorAligner.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "comment", allocationSize = IdGeneratorAligner.ALLOCATION_SIZE)
     private Integer id;
 
     @ManyToOne
@@ -53,6 +62,14 @@ public class Comment {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Chỉ được thay đổi bằng UPDATE ... SET like_count = like_count + delta (CommentRepository).
+    @Column(name = "like_count", nullable = false)
+    private int likeCount;
+
+    // Tăng mỗi lần tập người thích đổi (LikeStore); dùng cho ETag của feed.
+    @Column(name = "like_version", nullable = false)
+    private long likeVersion;
+
     @ManyToMany
     @JoinTable(
             name = "comment_likes",
@@ -67,4 +84,12 @@ public class Comment {
     @ManyToOne
     @JoinColumn(name = "parent_id")
     private Comment parentComment;
+
+    // Xem CommentPath; được gán ngay sau khi có id (CommentService) nên được ghi bằng một UPDATE sau INSERT,
+    // dữ liệu cũ do CommentPathBackfill điền.
+    @Column(name = "path", length = CommentPath.MAX_LENGTH)
+    private String path;
+
+    @Column(name = "depth", nullable = false)
+    private int depth;
 }
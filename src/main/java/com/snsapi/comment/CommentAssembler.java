@@ -0,0 +1,84 @@
+package com.snsapi.comment;
+
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.like.LikeDTO;
+import com.snsapi.like.LikeService;
+import com.snsapi.like.LikeTarget;
+import com.snsapi.user.UserDTO;
+import com.snsapi.user.UserSummaryCache;
+import com.snsapi.utils.DateConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Dựng CommentDTO cho một nhóm bình luận với số câu truy vấn cố định: số trả lời, vài trả lời đầu tiên,
+// tác giả và lượt thích đều lấy bằng IN theo danh sách id. Trả lời lồng bên trong không được mở tiếp
+// (replies = null, chỉ có replyCount); phần còn lại lấy qua GET /api/v1/comments/{id}/replies.
+@Component
+@RequiredArgsConstructor
+public class CommentAssembler {
+    private final CommentThreadStore commentThreadStore;
+    private final UserSummaryCache userSummaryCache;
+    private final LikeService likeService;
+
+    public List<CommentDTO> assemble(List<CommentRow> rows, Integer viewerId, FriendIdSet friends,
+                                     int repliesPerComment, boolean withLikers) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, List<CommentRow>> firstReplies = commentThreadStore.findFirstReplies(rows, repliesPerComment);
+        List<CommentRow> replyRows = firstReplies.values().stream().flatMap(List::stream).collect(Collectors.toList());
+
+        List<CommentRow> allRows = new ArrayList<>(rows);
+        allRows.addAll(replyRows);
+        List<Integer> allIds = allRows.stream().map(CommentRow::getId).collect(Collectors.toList());
+
+        Map<Integer, Integer> replyCounts = commentThreadStore.countReplies(allRows);
+        Map<Integer, List<UserDTO>> likers = withLikers
+                ? likeService.previewLikers(LikeTarget.COMMENT, allIds, friends) : Collections.emptyMap();
+        Set<Integer> liked = viewerId != null ? likeService.likedByMe(LikeTarget.COMMENT, allIds, viewerId) : null;
+
+        Set<Integer> authorIds = new HashSet<>();
+        allRows.forEach(row -> authorIds.add(row.getUserId()));
+        Map<Integer, UserDTO> authors = userSummaryCache.getAll(authorIds);
+
+        return rows.stream().map(row -> {
+            CommentDTO commentDTO = toDTO(row, replyCounts, withLikers, likers, liked, authors);
+            if (repliesPerComment > 0) {
+                commentDTO.setReplies(firstReplies.getOrDefault(row.getId(), Collections.emptyList()).stream()
+                        .map(reply -> toDTO(reply, replyCounts, withLikers, likers, liked, authors))
+                        .collect(Collectors.toList()));
+            }
+            return commentDTO;
+        }).collect(Collectors.toList());
+    }
+
+    private CommentDTO toDTO(CommentRow row,
+                             Map<Integer, Integer> replyCounts,
+                             boolean withLikers,
+                             Map<Integer, List<UserDTO>> likers,
+                             Set<Integer> liked,
+                             Map<Integer, UserDTO> authors) {
+        CommentDTO commentDTO = new CommentDTO();
+        commentDTO.setId(row.getId());
+        commentDTO.setPostId(row.getPostId());
+        commentDTO.setParentId(row.getParentId());
+        commentDTO.setUserId(row.getUserId());
+        commentDTO.setContent(row.getContent());
+        commentDTO.setCreatedAt(DateConverter.localDateTimeToDateWithSlash(row.getCreatedAt()));
+        commentDTO.setCreatedBy(authors.get(row.getUserId()));
+        commentDTO.setReplyCount(replyCounts.getOrDefault(row.getId(), 0));
+
+        List<UserDTO> likeByUsers = withLikers ? likers.getOrDefault(row.getId(), new ArrayList<>()) : null;
+        commentDTO.setLikes(new LikeDTO(likeService.displayCount(LikeTarget.COMMENT, row.getId(), row.getLikeCount()),
+                liked != null ? liked.contains(row.getId()) : null, likeByUsers));
+        return commentDTO;
+    }
+}
@@ -2,6 +2,7 @@ package com.snsapi.comment;
 
 import com.snsapi.like.LikeDTO;
 import com.snsapi.user.UserDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,13 +12,17 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class CommentDTO {
     private Integer id;
     private Integer postId;
+    private Integer parentId;
     private Integer userId;
     private String content;
     private String createdAt;
     private List<CommentDTO> replies;
+    // Số trả lời trực tiếp; replies chỉ chứa vài trả lời đầu tiên (hoặc null).
+    private Integer replyCount;
     private LikeDTO likes;
     private UserDTO createdBy;
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.snsapi.comment;
+
+// Đường dẫn vật chất hoá của bình luận: id của mọi tổ tiên rồi tới chính nó, mỗi id là một đoạn base36 rộng cố định.
+// Vì các đoạn cùng độ rộng, thứ tự chuỗi của path chính là thứ tự duyệt cây theo chiều sâu (anh em theo id),
+// và cả cây con của một bình luận là khoảng path LIKE 'path%' trên chỉ mục (post_id, path).
+public final class CommentPath {
+    // 36^6 > Integer.MAX_VALUE nên mọi id int vừa một đoạn.
+    public static final int SEGMENT_WIDTH = 6;
+    public static final int MAX_DEPTH = 120;
+    public static final int MAX_LENGTH = SEGMENT_WIDTH * MAX_DEPTH;
+
+    private CommentPath() {
+    }
+
+    // Nhận long để segment(id + 1) của id lớn nhất vẫn tính được (vẫn vừa SEGMENT_WIDTH).
+    public static String segment(long id) {
+        String digits = Long.toString(id, 36);
+        return "0".repeat(SEGMENT_WIDTH - digits.length()) + digits;
+    }
+
+    // parentPath null nghĩa là bình luận gốc.
+    public static String of(String parentPath, int id) {
+        return parentPath != null ? parentPath + segment(id) : segment(id);
+    }
+
+    // Độ sâu tính từ 0 (bình luận gốc).
+    public static int depthOf(String path) {
+        return path.length() / SEGMENT_WIDTH - 1;
+    }
+
+    // Path của bình luận mà trả lời thực sự được gắn vào: trả lời vào bình luận ở độ sâu tối đa
+    // được gắn vào cha của nó (thành anh em), để path không vượt quá MAX_LENGTH.
+    public static String replyParent(String parentPath) {
+        return depthOf(parentPath) >= MAX_DEPTH - 1 ? parentPath.substring(0, parentPath.length() - SEGMENT_WIDTH) : parentPath;
+    }
+
+    public static int lastId(String path) {
+        return Integer.parseInt(path.substring(path.length() - SEGMENT_WIDTH), 36);
+    }
+
+    // Cận trên (không gồm) của khoảng path chứa cả cây con: path của anh em kế tiếp theo id.
+    public static String subtreeEnd(String path) {
+        return path.substring(0, path.length() - SEGMENT_WIDTH) + segment(lastId(path) + 1L);
+    }
+
+    // Mẫu LIKE cho cả cây con, gồm chính bình luận; path chỉ gồm [0-9a-z] nên không cần escape.
+    public static String subtreePattern(String path) {
+        return path + "%";
+    }
+}
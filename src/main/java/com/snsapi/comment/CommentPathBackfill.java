@@ -0,0 +1,56 @@
+package com.snsapi.comment;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Điền path/depth cho bình luận tạo trước khi có cột path. Mỗi lượt lấy những bình luận chưa có path
+// mà cha đã có (hoặc là bình luận gốc), nên cây được điền từ gốc xuống; dừng khi không còn dòng nào.
+// Trả lời nằm sâu hơn CommentPath.MAX_DEPTH được gắn lại vào tổ tiên sâu nhất cho phép (như CommentService.saveReply).
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommentPathBackfill implements ApplicationRunner {
+    private static final String SELECT_READY = "SELECT c.id, p.path AS parent_path FROM comment c " +
+            "LEFT JOIN comment p ON p.id = c.parent_id " +
+            "WHERE c.path IS NULL AND (c.parent_id IS NULL OR p.path IS NOT NULL) ORDER BY c.id LIMIT ?";
+    private static final String UPDATE_PATH = "UPDATE comment SET path = ?, depth = ?, parent_id = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${comment.backfill.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int filled = 0;
+        List<Object[]> updates;
+        do {
+            updates = new ArrayList<>();
+            List<Object[]> batch = updates;
+            jdbcTemplate.query(SELECT_READY, rs -> {
+                int id = rs.getInt("id");
+                String parentPath = rs.getString("parent_path");
+                String attachTo = parentPath != null ? CommentPath.replyParent(parentPath) : null;
+                String path = CommentPath.of(attachTo, id);
+                batch.add(new Object[]{path, CommentPath.depthOf(path),
+                        attachTo != null ? CommentPath.lastId(attachTo) : null, id});
+            }, batchSize);
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_PATH, updates);
+                filled += updates.size();
+            }
+        } while (!updates.isEmpty());
+
+        if (filled > 0) {
+            log.info("Backfilled path for {} comments", filled);
+        }
+    }
+}
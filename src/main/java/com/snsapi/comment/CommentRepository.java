@@ -1,9 +1,37 @@
 package com.snsapi.comment;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
-    int countByPostId(Integer postId);
+    // Cả cây con (gồm chính bình luận) là một khoảng trên chỉ mục (post_id, path).
+    @Query("SELECT COUNT(c) FROM Comment c WHERE c.post.id = :postId AND c.path LIKE :pattern")
+    int countSubtree(@Param("postId") Integer postId, @Param("pattern") String pattern);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM comment_likes WHERE comment_id IN " +
+            "(SELECT id FROM comment WHERE post_id = :postId AND path LIKE :pattern)", nativeQuery = true)
+    int deleteSubtreeLikes(@Param("postId") Integer postId, @Param("pattern") String pattern);
+
+    // Khoá ngoại parent_id được kiểm tra từng dòng khi xoá, nên gỡ liên kết cha trong cây con trước khi xoá cả khoảng.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Comment c SET c.parentComment = null WHERE c.post.id = :postId AND c.path LIKE :pattern")
+    int detachSubtree(@Param("postId") Integer postId, @Param("pattern") String pattern);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Comment c WHERE c.post.id = :postId AND c.path LIKE :pattern")
+    int deleteSubtree(@Param("postId") Integer postId, @Param("pattern") String pattern);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Comment c SET c.likeCount = c.likeCount + :delta, c.likeVersion = c.likeVersion + 1 WHERE c.id = :commentId")
+    int addLikeCount(@Param("commentId") Integer commentId, @Param("delta") int delta);
+
+    @Query("SELECT c.likeCount FROM Comment c WHERE c.id = :commentId")
+    Optional<Integer> findLikeCountById(@Param("commentId") Integer commentId);
 }
@@ -0,0 +1,15 @@
+package com.snsapi.comment;
+
+import java.time.LocalDateTime;
+
+public interface CommentRow {
+    Integer getId();
+    Integer getPostId();
+    Integer getParentId();
+    Integer getUserId();
+    String getContent();
+    LocalDateTime getCreatedAt();
+    Integer getLikeCount();
+    String getPath();
+    int getDepth();
+}
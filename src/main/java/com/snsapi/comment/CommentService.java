@@ -1,22 +1,38 @@
 package com.snsapi.comment;
 
+import com.snsapi.friend.AddFriendService;
+import com.snsapi.friend.FriendIdSet;
 import com.snsapi.like.LikeDTO;
+import com.snsapi.like.LikeService;
+import com.snsapi.like.LikeTarget;
+import com.snsapi.like.LikeToggleResult;
+import com.snsapi.notification.NotificationRepository;
 import com.snsapi.post.Post;
 import com.snsapi.post.PostRepository;
+import com.snsapi.post.PostService;
+import com.snsapi.trending.TrendingService;
 import com.snsapi.user.User;
 import com.snsapi.user.UserDTO;
 import com.snsapi.user.UserRepository;
 import com.snsapi.user.UserServices;
+import com.snsapi.user.UserSummaryCache;
+import com.snsapi.utils.AfterCommit;
+import com.snsapi.utils.CursorPage;
 import com.snsapi.utils.DateConverter;
+import com.snsapi.utils.FieldSelection;
+import com.snsapi.utils.JsonArrayStreamer;
+import com.snsapi.utils.OpaqueCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -26,11 +42,131 @@ public class CommentService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final UserServices userServices;
+    private final UserSummaryCache userSummaryCache;
+    private final LikeService likeService;
+    private final TrendingService trendingService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final CommentThreadStore commentThreadStore;
+    private final CommentAssembler commentAssembler;
+    private final AddFriendService addFriendService;
+    private final NotificationRepository notificationRepository;
+
+    private static final int ALL_COMMENTS_BATCH = 1000;
+
+    // Số trả lời đầu tiên đi kèm mỗi bình luận gốc trong một trang bình luận.
+    @Value("${comment.reply-preview:3}")
+    private int replyPreview;
+
+    // Tên trường dùng được trong ?fields= của GET /api/v1/comments/export.
+    public static final Set<String> FIELDS = Set.of("id", "postId", "parentId", "userId", "content", "createdAt",
+            "likes", "createdBy");
+
+    // GET /api/v1/comments: mỗi bình luận gốc kèm cả cây trả lời lồng trong replies, ghi thẳng từ con trỏ JDBC
+    // (xem CommentTreeWriter). Trả lời chỉ xuất hiện trong replies của cha, không lặp lại ở cấp ngoài cùng.
+    public StreamingResponseBody streamCommentTree() {
+        return jsonArrayStreamer.streamRows(CommentThreadStore.ALL_IN_TREE_ORDER,
+                new CommentTreeWriter(commentAssembler, ALL_COMMENTS_BATCH));
+    }
+
+    // Mọi bình luận dưới dạng danh sách phẳng (trả lời trỏ về bình luận cha qua parentId), ghi thẳng từ con trỏ JDBC.
+    // Chỉ SELECT các cột của trường được chọn; bảng users chỉ được JOIN khi cần createdBy.
+    public StreamingResponseBody streamAllComments(FieldSelection fields) {
+        boolean withAuthor = fields.has("createdBy");
+        List<String> columns = new ArrayList<>();
+        columns.add("c.id");
+        if (fields.has("postId")) {
+            columns.add("c.post_id");
+        }
+        if (fields.has("parentId")) {
+            columns.add("c.parent_id");
+        }
+        if (fields.has("userId") || withAuthor) {
+            columns.add("c.user_id");
+        }
+        if (fields.has("content")) {
+            columns.add("c.content");
+        }
+        if (fields.has("createdAt")) {
+            columns.add("c.created_at");
+        }
+        if (fields.has("likes")) {
+            columns.add("c.like_count");
+        }
+        if (withAuthor) {
+            columns.add("u.name");
+            columns.add("u.profile_picture");
+        }
+        String sql = "SELECT " + String.join(", ", columns) + " FROM comment c" +
+                (withAuthor ? " JOIN users u ON u.id = c.user_id" : "") + " ORDER BY c.id";
+
+        return jsonArrayStreamer.stream(sql, (generator, rs) -> {
+            if (fields.has("id")) {
+                generator.writeNumberField("id", rs.getInt("id"));
+            }
+            if (fields.has("postId")) {
+                generator.writeNumberField("postId", rs.getInt("post_id"));
+            }
+            if (fields.has("parentId")) {
+                int parentId = rs.getInt("parent_id");
+                if (rs.wasNull()) {
+                    generator.writeNullField("parentId");
+                } else {
+                    generator.writeNumberField("parentId", parentId);
+                }
+            }
+            if (fields.has("userId")) {
+                generator.writeNumberField("userId", rs.getInt("user_id"));
+            }
+            if (fields.has("content")) {
+                generator.writeStringField("content", rs.getString("content"));
+            }
+            if (fields.has("createdAt")) {
+                generator.writeStringField("createdAt", DateConverter.timestampToDateWithSlash(rs.getTimestamp("created_at")));
+            }
+            if (fields.has("likes")) {
+                generator.writeObjectFieldStart("likes");
+                generator.writeNumberField("likeCount", rs.getInt("like_count"));
+                generator.writeEndObject();
+            }
+            if (withAuthor) {
+                generator.writeObjectFieldStart("createdBy");
+                generator.writeNumberField("id", rs.getInt("user_id"));
+                generator.writeStringField("name", rs.getString("name"));
+                generator.writeStringField("profilePicture", rs.getString("profile_picture"));
+                generator.writeEndObject();
+            }
+        });
+    }
 
-    public List<CommentDTO> getAllComments() {
-        return commentRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Một trang bình luận gốc của bài viết (keyset theo id), mỗi bình luận kèm replyCount và vài trả lời đầu tiên.
+    @Transactional(readOnly = true)
+    public CursorPage<CommentDTO> getComments(Integer postId, String cursor, int size, Integer viewerId) {
+        if (!postRepository.existsById(postId)) {
+            throw new EntityNotFoundException("Bài viết không tồn tại.");
+        }
+        int pageSize = PostService.clampPageSize(size);
+        List<CommentRow> rows = commentThreadStore.findTopLevel(postId, OpaqueCursor.decodeId(cursor, 0), pageSize + 1);
+        return toPage(rows, pageSize, viewerId, replyPreview);
+    }
+
+    // Các trả lời trực tiếp còn lại của một bình luận; trả lời sâu hơn được mở tiếp bằng chính endpoint này.
+    @Transactional(readOnly = true)
+    public CursorPage<CommentDTO> getReplies(Integer commentId, String cursor, int size, Integer viewerId) {
+        CommentRow parent = commentThreadStore.findById(commentId)
+                .orElseThrow(() -> new EntityNotFoundException("Bình luận không tồn tại."));
+        int pageSize = PostService.clampPageSize(size);
+        List<CommentRow> rows = commentThreadStore.findReplies(parent, OpaqueCursor.decodeId(cursor, 0), pageSize + 1);
+        return toPage(rows, pageSize, viewerId, 0);
+    }
+
+    private CursorPage<CommentDTO> toPage(List<CommentRow> rows, int pageSize, Integer viewerId, int repliesPerComment) {
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = OpaqueCursor.encode(rows.get(pageSize - 1).getId());
+        }
+        FriendIdSet friends = viewerId != null ? addFriendService.findFriendIdSet(viewerId) : FriendIdSet.empty();
+        return new CursorPage<>(commentAssembler.assemble(rows, viewerId, friends, repliesPerComment, true), nextCursor);
     }
 
     public CommentDTO saveComment(Integer userId, Integer postId, String content) {
@@ -45,7 +181,15 @@ public class CommentService {
         comment.setPost(post);
         comment.setContent(content);
 
-        return convertToDTO(commentRepository.save(comment));
+        // Id có ngay sau save (table generator) nhưng path phụ thuộc vào id, nên khi flush Hibernate ghi INSERT rồi
+        // một UPDATE chỉ gồm path và depth (@DynamicUpdate) trong cùng transaction.
+        Comment savedComment = commentRepository.save(comment);
+        savedComment.setPath(CommentPath.of(null, savedComment.getId()));
+        savedComment.setDepth(0);
+        postRepository.addCommentCount(postId, 1);
+        Post.VisibilityEnum visibility = post.getVisibility();
+        AfterCommit.run(() -> trendingService.onCommentAdded(postId, visibility));
+        return convertToDTO(savedComment);
     }
 
 
@@ -64,18 +208,32 @@ public class CommentService {
     public void deleteComment(Integer commentId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new EntityNotFoundException("Bình luận không tồn tại."));
-        commentRepository.delete(comment);
+        // Cả cây con là một khoảng (post_id, path): xoá lượt thích và thông báo của khoảng đó rồi xoá các bình luận
+        // bằng vài câu lệnh theo khoảng, thay vì nạp và cascade qua từng danh sách replies.
+        Integer postId = comment.getPost().getId();
+        String pattern = CommentPath.subtreePattern(comment.getPath());
+        int removed = commentRepository.countSubtree(postId, pattern);
+        commentRepository.deleteSubtreeLikes(postId, pattern);
+        notificationRepository.deleteByCommentSubtree(postId, pattern);
+        if (removed > 1) {
+            commentRepository.detachSubtree(postId, pattern);
+        }
+        commentRepository.deleteSubtree(postId, pattern);
+        postRepository.addCommentCount(postId, -removed);
     }
 
-    public CommentDTO saveReply(Integer userId, Integer postId, Integer commentId, String content) {
+    public CommentDTO saveReply(Integer userId, Integer commentId, String content) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("Người dùng không tồn tại."));
 
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new EntityNotFoundException("Bài viết không tồn tại."));
-
         Comment parentComment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new EntityNotFoundException("Bình luận không tồn tại."));
+        String parentPath = CommentPath.replyParent(parentComment.getPath());
+        if (parentPath.length() < parentComment.getPath().length()) {
+            parentComment = commentRepository.getReferenceById(CommentPath.lastId(parentPath));
+        }
+        // Trả lời luôn thuộc bài viết của bình luận cha, để cả cây con nằm trong cùng khoảng (post_id, path).
+        Post post = parentComment.getPost();
 
         Comment reply = new Comment();
         reply.setUser(user);
@@ -83,44 +241,30 @@ public class CommentService {
         reply.setContent(content);
         reply.setParentComment(parentComment);
 
+        // Danh sách replies của bình luận cha không bị nạp hay ghi lại; như saveComment, dòng mới được INSERT
+        // rồi UPDATE path và depth khi flush vì path chứa chính id của nó.
         Comment savedReply = commentRepository.save(reply);
-
-        parentComment.getReplies().add(savedReply);
-        commentRepository.save(parentComment);
+        savedReply.setPath(CommentPath.of(parentPath, savedReply.getId()));
+        savedReply.setDepth(CommentPath.depthOf(savedReply.getPath()));
+        postRepository.addCommentCount(post.getId(), 1);
+        Post.VisibilityEnum visibility = post.getVisibility();
+        AfterCommit.run(() -> trendingService.onCommentAdded(post.getId(), visibility));
 
         return convertToDTO(savedReply);
     }
 
     public int countCommentsForPost(Integer postId) {
-        return commentRepository.countByPostId(postId);
+        return postRepository.findCommentCountById(postId).orElse(0);
     }
 
-    public void toggleLikeComment(Integer commentId, Integer userId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new EntityNotFoundException("Bình luận không tồn tại."));
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Người dùng không tồn tại."));
-
-        if (comment.getLikeUsers().contains(user)) {
-            comment.getLikeUsers().remove(user);
-        } else {
-            comment.getLikeUsers().add(user);
-        }
-
-        commentRepository.save(comment);
+    public LikeToggleResult toggleLikeComment(Integer commentId, Integer userId) {
+        return likeService.toggle(LikeTarget.COMMENT, commentId, userId);
     }
 
     public int countLikes(Integer commentId) {
-        Comment comment = commentRepository.findById(commentId)
+        int stored = commentRepository.findLikeCountById(commentId)
                 .orElseThrow(() -> new EntityNotFoundException("Bình luận không tồn tại."));
-        return comment.getLikeUsers().size();
-    }
-
-    public List<User> getUsersWhoLikedComment(Integer commentId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new EntityNotFoundException("Bình luận không tồn tại."));
-        return new ArrayList<>(comment.getLikeUsers());
+        return likeService.displayCount(LikeTarget.COMMENT, commentId, stored);
     }
 
     public Comment findCommentById(Integer commentId) {
@@ -133,41 +277,26 @@ public class CommentService {
     }
 
 
+    // Chỉ dựng chính bình luận: trả lời không được nạp đệ quy, chỉ đếm (replyCount).
     private CommentDTO convertToDTO(Comment comment) {
-        UserDTO userDTO = null;
-
-        Optional<User> userOptional = userRepository.findById(comment.getUser().getId());
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            userDTO = new UserDTO(user.getId(), user.getName(), user.getProfilePicture());
-        }
+        UserDTO userDTO = userSummaryCache.get(comment.getUser().getId());
 
         CommentDTO dto = new CommentDTO();
         dto.setId(comment.getId());
         dto.setPostId(comment.getPost().getId());
+        dto.setParentId(comment.getParentComment() != null ? comment.getParentComment().getId() : null);
         dto.setUserId(comment.getUser().getId());
         dto.setContent(comment.getContent());
         dto.setCreatedAt(DateConverter.localDateTimeToDateWithSlash(comment.getCreatedAt()));
 
         dto.setCreatedBy(userDTO);
 
-        List<CommentDTO> repliesDTO = comment.getReplies() != null ?
-                comment.getReplies().stream()
-                        .map(this::convertToDTO)
-                        .collect(Collectors.toList()) : new ArrayList<>();
-        dto.setReplies(repliesDTO);
+        dto.setReplyCount(commentThreadStore.countReplies(comment.getPost().getId(), comment.getPath()));
 
         LikeDTO likeDTO = new LikeDTO();
-        likeDTO.setLikeCount(comment.getLikeUsers().size());
-        likeDTO.setLikeByUsers(comment.getLikeUsers().stream()
-                .map(user -> {
-                    UserDTO likeUserDTO = new UserDTO();
-                    likeUserDTO.setId(user.getId());
-                    likeUserDTO.setName(user.getName());
-                    likeUserDTO.setProfilePicture(user.getProfilePicture());
-                    return likeUserDTO;
-                })
-                .collect(Collectors.toList()));
+        likeDTO.setLikeCount(likeService.displayCount(LikeTarget.COMMENT, comment.getId(), comment.getLikeCount()));
+        likeDTO.setLikeByUsers(likeService.previewLikers(LikeTarget.COMMENT, List.of(comment.getId()), FriendIdSet.empty())
+                .getOrDefault(comment.getId(), new ArrayList<>()));
 
         dto.setLikes(likeDTO);
         return dto;
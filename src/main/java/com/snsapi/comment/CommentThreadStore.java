@@ -0,0 +1,166 @@
+package com.snsapi.comment;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Đọc cây bình luận theo từng phần: một trang bình luận gốc hoặc trả lời (keyset theo id), vài phần tử đầu
+// cho mỗi cha (ROW_NUMBER), và số trả lời trực tiếp - không bao giờ nạp cả cây.
+// Trả lời của một bình luận được đọc bằng khoảng (post_id, path) của cây con, lọc theo depth, thay vì đi theo parent_id.
+@Repository
+@RequiredArgsConstructor
+public class CommentThreadStore {
+    private static final String COLUMNS =
+            "c.id, c.post_id, c.parent_id, c.user_id, c.content, c.created_at, c.like_count, c.path, c.depth";
+
+    private static final RowMapper<CommentRow> ROW_MAPPER = (rs, rowNum) -> {
+        int parentId = rs.getInt("parent_id");
+        Integer parent = rs.wasNull() ? null : parentId;
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new Row(rs.getInt("id"), rs.getInt("post_id"), parent, rs.getInt("user_id"), rs.getString("content"),
+                createdAt != null ? createdAt.toLocalDateTime() : null, rs.getInt("like_count"),
+                rs.getString("path"), rs.getInt("depth"));
+    };
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // Mọi bình luận theo (post_id, path), tức duyệt từng cây theo chiều sâu; GET /api/v1/comments stream câu này
+    // và đọc từng dòng bằng mapRow.
+    public static final String ALL_IN_TREE_ORDER = "SELECT " + COLUMNS + " FROM comment c ORDER BY c.post_id, c.path";
+
+    public static CommentRow mapRow(ResultSet rs) throws SQLException {
+        return ROW_MAPPER.mapRow(rs, rs.getRow());
+    }
+
+    public Optional<CommentRow> findById(int id) {
+        return namedJdbcTemplate.query("SELECT " + COLUMNS + " FROM comment c WHERE c.id = :id",
+                new MapSqlParameterSource("id", id), ROW_MAPPER).stream().findFirst();
+    }
+
+    public List<CommentRow> findTopLevel(int postId, int afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("postId", postId)
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        return namedJdbcTemplate.query("SELECT " + COLUMNS + " FROM comment c " +
+                "WHERE c.post_id = :postId AND c.parent_id IS NULL AND c.id > :afterId ORDER BY c.id LIMIT :limit",
+                params, ROW_MAPPER);
+    }
+
+    // Trả lời trực tiếp có id lớn hơn afterId: trong cây con, path của chúng bắt đầu từ path của anh em id afterId + 1.
+    public List<CommentRow> findReplies(CommentRow parent, int afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("postId", parent.getPostId())
+                .addValue("from", CommentPath.of(parent.getPath(), Math.max(afterId, 0) + 1))
+                .addValue("to", CommentPath.subtreeEnd(parent.getPath()))
+                .addValue("depth", parent.getDepth() + 1)
+                .addValue("limit", limit);
+        return namedJdbcTemplate.query("SELECT " + COLUMNS + " FROM comment c " +
+                "WHERE c.post_id = :postId AND c.path >= :from AND c.path < :to AND c.depth = :depth " +
+                "ORDER BY c.path LIMIT :limit", params, ROW_MAPPER);
+    }
+
+    // limit bình luận gốc đầu tiên của mỗi bài.
+    public Map<Integer, List<CommentRow>> findFirstTopLevel(Collection<Integer> postIds, int limit) {
+        if (postIds.isEmpty() || limit <= 0) {
+            return new LinkedHashMap<>();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", postIds);
+        return firstPerGroup("c.post_id", "c.post_id IN (:ids) AND c.parent_id IS NULL", params, limit);
+    }
+
+    // limit trả lời đầu tiên của mỗi bình luận.
+    public Map<Integer, List<CommentRow>> findFirstReplies(Collection<? extends CommentRow> parents, int limit) {
+        if (parents.isEmpty() || limit <= 0) {
+            return new LinkedHashMap<>();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        return firstPerGroup("c.parent_id", childRanges(parents, params), params, limit);
+    }
+
+    // Số trả lời trực tiếp của mỗi bình luận; bình luận không có trả lời không có trong map.
+    public Map<Integer, Integer> countReplies(Collection<? extends CommentRow> comments) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        if (comments.isEmpty()) {
+            return counts;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        namedJdbcTemplate.query("SELECT c.parent_id, COUNT(*) AS replies FROM comment c " +
+                "WHERE " + childRanges(comments, params) + " GROUP BY c.parent_id", params, rs -> {
+            counts.put(rs.getInt("parent_id"), rs.getInt("replies"));
+        });
+        return counts;
+    }
+
+    // Số trả lời trực tiếp của một bình luận.
+    public int countReplies(int postId, String path) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("postId", postId)
+                .addValue("from", path)
+                .addValue("to", CommentPath.subtreeEnd(path))
+                .addValue("depth", CommentPath.depthOf(path) + 1);
+        Integer count = namedJdbcTemplate.queryForObject("SELECT COUNT(*) FROM comment c " +
+                "WHERE c.post_id = :postId AND c.path > :from AND c.path < :to AND c.depth = :depth", params, Integer.class);
+        return count != null ? count : 0;
+    }
+
+    // Một khoảng (post_id, path) cho cây con của mỗi bình luận, chỉ lấy con trực tiếp; mọi khoảng nằm trên
+    // chỉ mục idx_comment_post_path. c.parent_id trong kết quả chỉ dùng làm nhãn nhóm.
+    private static String childRanges(Collection<? extends CommentRow> parents, MapSqlParameterSource params) {
+        List<String> ranges = new ArrayList<>();
+        int i = 0;
+        for (CommentRow parent : parents) {
+            ranges.add("(c.post_id = :post" + i + " AND c.path > :from" + i + " AND c.path < :to" + i +
+                    " AND c.depth = :depth" + i + ")");
+            params.addValue("post" + i, parent.getPostId())
+                    .addValue("from" + i, parent.getPath())
+                    .addValue("to" + i, CommentPath.subtreeEnd(parent.getPath()))
+                    .addValue("depth" + i, parent.getDepth() + 1);
+            i++;
+        }
+        return "(" + String.join(" OR ", ranges) + ")";
+    }
+
+    private Map<Integer, List<CommentRow>> firstPerGroup(String groupColumn, String where, MapSqlParameterSource params,
+                                                         int limit) {
+        Map<Integer, List<CommentRow>> groups = new LinkedHashMap<>();
+        String sql = "SELECT x.* FROM (SELECT " + COLUMNS + ", " + groupColumn + " AS group_id, " +
+                "ROW_NUMBER() OVER (PARTITION BY " + groupColumn + " ORDER BY c.id) AS rn " +
+                "FROM comment c WHERE " + where + ") x WHERE x.rn <= :limit ORDER BY x.group_id, x.id";
+        params.addValue("limit", limit);
+        namedJdbcTemplate.query(sql, params, rs -> {
+            groups.computeIfAbsent(rs.getInt("group_id"), id -> new ArrayList<>()).add(ROW_MAPPER.mapRow(rs, 0));
+        });
+        return groups;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Row implements CommentRow {
+        private final Integer id;
+        private final Integer postId;
+        private final Integer parentId;
+        private final Integer userId;
+        private final String content;
+        private final LocalDateTime createdAt;
+        private final Integer likeCount;
+        private final String path;
+        private final int depth;
+    }
+}
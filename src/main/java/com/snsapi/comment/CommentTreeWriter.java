@@ -0,0 +1,80 @@
+package com.snsapi.comment;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.utils.JsonArrayStreamer;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Ghi mọi bình luận thành các cây lồng nhau trong lúc đọc con trỏ JDBC theo (post_id, path). Thứ tự đó là duyệt
+// theo chiều sâu, nên chỉ cần giữ số bình luận đang mở (object chưa đóng, replies còn mở) theo độ sâu: gặp một
+// dòng ở độ sâu d thì đóng các bình luận từ độ sâu d trở xuống. Dòng được gom theo lô để CommentAssembler lấy
+// tác giả, lượt thích và số trả lời bằng vài câu IN; bộ nhớ chỉ phụ thuộc kích thước lô và độ sâu cây.
+class CommentTreeWriter implements JsonArrayStreamer.RowsWriter {
+    private final CommentAssembler commentAssembler;
+    private final int batchSize;
+    private final List<CommentRow> batch = new ArrayList<>();
+    private int open;
+
+    CommentTreeWriter(CommentAssembler commentAssembler, int batchSize) {
+        this.commentAssembler = commentAssembler;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void write(JsonGenerator generator, ResultSet rs) throws SQLException, IOException {
+        batch.add(CommentThreadStore.mapRow(rs));
+        if (batch.size() >= batchSize) {
+            writeBatch(generator);
+        }
+    }
+
+    @Override
+    public void finish(JsonGenerator generator) throws IOException {
+        writeBatch(generator);
+        close(generator, 0);
+    }
+
+    private void writeBatch(JsonGenerator generator) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<CommentDTO> comments = commentAssembler.assemble(batch, null, FriendIdSet.empty(), 0, true);
+        for (int i = 0; i < batch.size(); i++) {
+            close(generator, batch.get(i).getDepth());
+            writeOpen(generator, comments.get(i));
+        }
+        batch.clear();
+    }
+
+    private void writeOpen(JsonGenerator generator, CommentDTO comment) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", comment.getId());
+        generator.writeNumberField("postId", comment.getPostId());
+        if (comment.getParentId() != null) {
+            generator.writeNumberField("parentId", comment.getParentId());
+        }
+        generator.writeNumberField("userId", comment.getUserId());
+        generator.writeStringField("content", comment.getContent());
+        generator.writeStringField("createdAt", comment.getCreatedAt());
+        generator.writeNumberField("replyCount", comment.getReplyCount());
+        generator.writeObjectField("likes", comment.getLikes());
+        if (comment.getCreatedBy() != null) {
+            generator.writeObjectField("createdBy", comment.getCreatedBy());
+        }
+        generator.writeArrayFieldStart("replies");
+        open++;
+    }
+
+    private void close(JsonGenerator generator, int depth) throws IOException {
+        while (open > depth) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            open--;
+        }
+    }
+}
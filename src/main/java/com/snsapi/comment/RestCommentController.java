@@ -1,20 +1,26 @@
 package com.snsapi.comment;
 
 import com.snsapi.like.LikeDTO;
+import com.snsapi.like.LikeService;
+import com.snsapi.like.LikeTarget;
+import com.snsapi.like.LikeToggleResult;
 import com.snsapi.post.PostRepository;
 import com.snsapi.user.User;
 import com.snsapi.user.UserDTO;
 import com.snsapi.user.UserServices;
+import com.snsapi.utils.CursorPage;
+import com.snsapi.utils.FieldSelection;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.security.Principal;
-import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/comments")
@@ -23,11 +29,22 @@ public class RestCommentController {
     private final CommentService commentService;
     private final PostRepository postRepository;
     private final UserServices userServices;
+    private final LikeService likeService;
 
+    // Cây bình luận lồng nhau, stream theo từng lô; danh sách phẳng với ?fields= nằm ở /export.
     @GetMapping
-    public ResponseEntity<List<CommentDTO>> getAllComments() {
-        List<CommentDTO> comments = commentService.getAllComments();
-        return ResponseEntity.ok(comments);
+    public ResponseEntity<StreamingResponseBody> getAllComments() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(commentService.streamCommentTree());
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<?> exportComments(@RequestParam(value = "fields", required = false) String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, null, CommentService.FIELDS);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(commentService.streamAllComments(selection));
     }
 
     @GetMapping("/post/{postId}/count")
@@ -52,6 +69,7 @@ public class RestCommentController {
             userDTO.setId(savedComment.getUserId());
             userDTO.setName(savedComment.getCreatedBy().getName());
             userDTO.setProfilePicture(savedComment.getCreatedBy().getProfilePicture());
+            userDTO.setAvatarVariants(savedComment.getCreatedBy().getAvatarVariants());
 
             savedComment.setCreatedBy(userDTO);
 
@@ -63,6 +81,21 @@ public class RestCommentController {
     }
 
 
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<?> getReplies(@PathVariable Integer commentId,
+                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "size", defaultValue = "20") int size,
+                                        Principal principal) {
+        try {
+            CursorPage<CommentDTO> page = commentService.getReplies(commentId, cursor, size, viewerIdOf(principal));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PostMapping("/{commentId}/replies")
     public ResponseEntity<CommentDTO> createReply(@PathVariable Integer commentId, @RequestBody CommentDTO replyDTO, Principal principal) {
         if (replyDTO.getContent() == null || replyDTO.getContent().trim().isEmpty()) {
@@ -76,7 +109,7 @@ public class RestCommentController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
-        CommentDTO savedReply = commentService.saveReply(user.get().getId(), replyDTO.getPostId(), commentId, replyDTO.getContent());
+        CommentDTO savedReply = commentService.saveReply(user.get().getId(), commentId, replyDTO.getContent());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(savedReply);
     }
@@ -124,19 +157,35 @@ public class RestCommentController {
         Optional<User> user = userServices.findByEmail(email);
 
         if (user.isPresent()) {
-            commentService.toggleLikeComment(commentId, user.get().getId());
-
-            int likeCount = commentService.countLikes(commentId);
-            List<User> likedUsers = commentService.getUsersWhoLikedComment(commentId);
-
-            List<UserDTO> userDTOs = likedUsers.stream()
-                    .map(likedUser -> new UserDTO(likedUser.getId(), likedUser.getName(), likedUser.getProfilePicture()))
-                    .collect(Collectors.toList());
+            LikeToggleResult result = commentService.toggleLikeComment(commentId, user.get().getId());
 
-            LikeDTO response = new LikeDTO(likeCount, userDTOs);
+            LikeDTO response = new LikeDTO();
+            response.setLikeCount(result.getLikeCount());
+            response.setLikedByMe(result.isLiked());
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    @GetMapping("/{commentId}/likes")
+    public ResponseEntity<?> findLikers(@PathVariable Integer commentId,
+                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            CursorPage<UserDTO> page = likeService.getLikers(LikeTarget.COMMENT, commentId, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private Integer viewerIdOf(Principal principal) {
+        if (principal == null) {
+            return null;
+        }
+        return userServices.findByEmail(principal.getName()).map(User::getId).orElse(null);
+    }
 }
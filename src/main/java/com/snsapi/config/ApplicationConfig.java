@@ -7,8 +7,8 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -19,13 +19,16 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @ComponentScan(basePackages = "com.snsapi")
 @EnableJpaRepositories(basePackages = "com.snsapi")
 public class ApplicationConfig implements WebMvcConfigurer {
+    // /image/** do com.snsapi.media.MediaFileController phục vụ.
 
-    @Value("${upload.image}")
-    private String fileUpload;
+    // StreamingResponseBody (các endpoint xuất danh sách lớn) chạy như request bất đồng bộ. Với @EnableWebMvc,
+    // spring.mvc.async.request-timeout không được áp dụng nên phải đặt ở đây; nếu không, timeout 30 giây mặc định
+    // của Tomcat cắt ngang và để lại JSON dở dang. 0 là không giới hạn.
+    @Value("${stream.request-timeout-ms:0}")
+    private long streamRequestTimeoutMs;
 
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/image/**")
-                .addResourceLocations("file:" + fileUpload);
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(streamRequestTimeoutMs);
     }
 }
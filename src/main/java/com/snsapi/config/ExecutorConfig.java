@@ -0,0 +1,60 @@
+package com.snsapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Các pool luồng nền của ứng dụng, khai báo ở một chỗ: số luồng cố định, hàng đợi giới hạn, luồng daemon đặt tên
+// theo việc. Spring khởi tạo pool và gọi shutdown khi tắt ứng dụng (việc đã vào hàng đợi vẫn được chạy nốt).
+@Configuration
+public class ExecutorConfig {
+    public static final String POST_UPLOAD = "postUploadExecutor";
+    public static final String IMAGE_VARIANTS = "imageVariantExecutor";
+    public static final String SEARCH_REINDEX = "searchReindexExecutor";
+    public static final String SEARCH_REINDEX_BATCHES = "searchReindexBatchExecutor";
+
+    // Khi hàng đợi đầy, luồng request tự ghi tệp của mình thay vì từ chối bài viết.
+    @Bean(POST_UPLOAD)
+    public ThreadPoolTaskExecutor postUploadExecutor(@Value("${post.upload.threads:4}") int threads,
+                                                     @Value("${post.upload.queue-capacity:64}") int queueCapacity) {
+        return fixedPool("post-upload-", threads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Khi hàng đợi đầy, việc bị từ chối (TaskRejectedException), không chạy trên luồng gọi.
+    @Bean(IMAGE_VARIANTS)
+    public ThreadPoolTaskExecutor imageVariantExecutor(@Value("${image.variants.threads:2}") int threads,
+                                                       @Value("${image.variants.queue-capacity:1000}") int queueCapacity) {
+        return fixedPool("image-variants-", threads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Dựng lại chỉ mục tìm kiếm lúc khởi động mà không giữ luồng khởi động; các lần dựng chạy lần lượt.
+    @Bean(SEARCH_REINDEX)
+    public ThreadPoolTaskExecutor searchReindexExecutor() {
+        return fixedPool("search-reindex-", 1, 4, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Các đoạn id của một lần dựng lại (ParallelReindex). Khi hàng đợi đầy, luồng đang dựng tự xử lý đoạn đó,
+    // nên số đoạn chờ luôn bị giới hạn dù bảng lớn tới đâu.
+    @Bean(SEARCH_REINDEX_BATCHES)
+    public ThreadPoolTaskExecutor searchReindexBatchExecutor(@Value("${search.reindex.threads:4}") int threads,
+                                                             @Value("${search.reindex.queue-capacity:16}") int queueCapacity) {
+        return fixedPool("search-reindex-batch-", threads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ThreadPoolTaskExecutor fixedPool(String threadNamePrefix, int threads, int queueCapacity,
+                                                    RejectedExecutionHandler whenFull) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler(whenFull);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,45 @@
+package com.snsapi.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Các entity lấy id từ bảng id_generator (pooled, mỗi lần giữ ALLOCATION_SIZE id) thay vì IDENTITY,
+// để Hibernate biết id trước khi INSERT và gom được nhiều câu INSERT thành một JDBC batch.
+// Khi khởi động (sau khi Hibernate tạo schema, trước khi nhận request) đẩy next_val của từng bảng
+// vượt quá MAX(id) hiện có: dữ liệu cũ được tạo bằng AUTO_INCREMENT, hoặc được chèn tường minh bởi seeder.
+@Component
+public class IdGeneratorAligner {
+    public static final String TABLE = "id_generator";
+    public static final int ALLOCATION_SIZE = 50;
+
+    // pkColumnValue của @TableGenerator trùng với tên bảng.
+    private static final List<String> SEGMENTS = List.of("users", "friend", "post", "media", "comment", "notification");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Phụ thuộc EntityManagerFactory để chạy sau khi Hibernate đã tạo/cập nhật schema.
+    public IdGeneratorAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Với optimizer pooled, giá trị đọc được S cho khối id (S - ALLOCATION_SIZE, S], nên S phải ít nhất MAX(id) + ALLOCATION_SIZE.
+    @PostConstruct
+    public void align() {
+        for (String segment : SEGMENTS) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + segment, Long.class);
+            long next = (maxId != null ? maxId : 0) + ALLOCATION_SIZE + 1;
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE + " WHERE sequence_name = ?",
+                    Integer.class, segment);
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update("INSERT INTO " + TABLE + " (sequence_name, next_val) VALUES (?, ?)", segment, next);
+            } else {
+                jdbcTemplate.update("UPDATE " + TABLE + " SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                        next, segment, next);
+            }
+        }
+    }
+}
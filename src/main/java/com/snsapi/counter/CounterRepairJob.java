@@ -0,0 +1,55 @@
+package com.snsapi.counter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Tính lại like_count / comment_count từ các bảng gốc (post_likes, comment_likes, comment), theo từng đoạn id
+// để mỗi câu UPDATE chỉ khoá một số dòng nhỏ và commit riêng.
+@Component
+@RequiredArgsConstructor
+public class CounterRepairJob {
+    private static final String REPAIR_POSTS = "UPDATE post SET " +
+            "like_count = (SELECT COUNT(*) FROM post_likes pl WHERE pl.post_id = post.id), " +
+            "comment_count = (SELECT COUNT(*) FROM comment c WHERE c.post_id = post.id) " +
+            "WHERE post.id > ? AND post.id <= ?";
+
+    private static final String REPAIR_COMMENTS = "UPDATE comment SET " +
+            "like_count = (SELECT COUNT(*) FROM comment_likes cl WHERE cl.comment_id = comment.id) " +
+            "WHERE comment.id > ? AND comment.id <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${counter.repair.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${counter.repair.on-startup:false}")
+    private boolean repairOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void repairOnStartup() {
+        if (repairOnStartup) {
+            repairAll();
+        }
+    }
+
+    @Scheduled(cron = "${counter.repair.cron:0 30 3 * * *}")
+    public void repairAll() {
+        repairInChunks("SELECT COALESCE(MAX(id), 0) FROM post", REPAIR_POSTS);
+        repairInChunks("SELECT COALESCE(MAX(id), 0) FROM comment", REPAIR_COMMENTS);
+    }
+
+    private void repairInChunks(String maxIdQuery, String repairStatement) {
+        Integer maxId = jdbcTemplate.queryForObject(maxIdQuery, Integer.class);
+        if (maxId == null) {
+            return;
+        }
+        for (int from = 0; from < maxId; from += chunkSize) {
+            jdbcTemplate.update(repairStatement, from, from + chunkSize);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.snsapi.exception;
+
+// Tham số truy vấn sai (fields, include, cursor); AppExceptionController trả 400 kèm thông báo.
+public class InvalidRequestParameterException extends IllegalArgumentException {
+    public InvalidRequestParameterException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestParameterException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,6 +1,7 @@
 
 package com.snsapi.friend;
 
+import com.snsapi.config.IdGeneratorAligner;
 import com.snsapi.user.User;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -17,7 +18,9 @@ import lombok.NoArgsConstructor;
 public class AddFriend {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "friend_id")
+    @TableGenerator(name = "friend_id", table = IdGeneratorAligner.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "friend", allocationSize = IdGeneratorAligner.ALLOCATION_SIZE)
     private Integer id;
 
     @ManyToOne
@@ -1,8 +1,12 @@
 package com.snsapi.friend;
 
 import com.snsapi.user.*;
+import com.snsapi.utils.AfterCommit;
+import com.snsapi.utils.VersionTag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.file.AccessDeniedException;
 import java.util.Collections;
@@ -13,6 +17,8 @@ import java.util.List;
 public class AddFriendService  {
     private final IAddFriendRepository addFriendRepository;
     private final UserRepository userRepository;
+    private final FriendSetCache friendSetCache;
+    private final JdbcTemplate jdbcTemplate;
 
     public AddFriend addPending(Integer friendId, Integer user) {
         AddFriend addFriend = AddFriend.builder()
@@ -35,8 +41,10 @@ public class AddFriendService  {
                 .status(Status.ACCEPTED)
                 .build();
         addFriendRepository.save(addFriend);
+        invalidateFriendSets(friendId, userId);
     }
 
+    @Transactional
     public void acceptFriend(Integer friendId, Integer userId) {
 
         AddFriend addFriend = addFriendRepository.findByUserIdAndFriendId(userId, friendId)
@@ -48,18 +56,45 @@ public class AddFriendService  {
         }
     }
 
+    @Transactional
     public void rejectFriend(Integer friendId, Integer userId) {
         addFriendRepository.findByUserIdAndFriendId(friendId, userId)
                 .ifPresent(addFriendRepository::delete);
 
         addFriendRepository.findByUserIdAndFriendId(userId, friendId)
                 .ifPresent(addFriendRepository::delete);
+        invalidateFriendSets(friendId, userId);
     }
 
     public List<Integer> mutualFriends(Integer user1, Integer user2) {
         return addFriendRepository.findMutualFriends(user1, user2);
     }
 
+    public FriendIdSet findFriendIdSet(Integer userId) {
+        return friendSetCache.get(userId, id -> FriendIdSet.of(addFriendRepository.findAllFriendIds(id)));
+    }
+
+    private void invalidateFriendSets(Integer friendId, Integer userId) {
+        AfterCommit.run(() -> {
+            friendSetCache.invalidate(friendId);
+            friendSetCache.invalidate(userId);
+        });
+    }
+
+    // ETag của danh sách bạn bè: số quan hệ ACCEPTED, tổng id của chúng (đổi khi có quan hệ bị xoá rồi thêm)
+    // và updated_at mới nhất trong hồ sơ bạn bè (tên, ảnh đại diện).
+    public String getFriendListETag(Integer userId) {
+        VersionTag tag = new VersionTag().add(userId);
+        jdbcTemplate.query("SELECT COUNT(*) AS total, COALESCE(SUM(f.id), 0) AS id_sum, MAX(u.updated_at) AS last_updated " +
+                "FROM friend f JOIN users u ON u.id = CASE WHEN f.user_id = ? THEN f.friend_id ELSE f.user_id END " +
+                "WHERE (f.user_id = ? OR f.friend_id = ?) AND f.status = 'ACCEPTED'", rs -> {
+            tag.add(rs.getLong("total"))
+                    .add(rs.getLong("id_sum"))
+                    .add(rs.getTimestamp("last_updated"));
+        }, userId, userId, userId);
+        return tag.toETag();
+    }
+
     public List<UserDTO> findAllFriends(Integer userId) {
         List<Integer> friendIds = addFriendRepository.findAllFriendIds(userId);
         if (!friendIds.isEmpty()) {
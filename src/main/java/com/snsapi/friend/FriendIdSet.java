@@ -0,0 +1,63 @@
+package com.snsapi.friend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Tập id bạn bè dạng mảng int đã sắp xếp: tra cứu bằng binary search, không boxing, đủ gọn để giữ trong bộ nhớ.
+public final class FriendIdSet {
+    private static final FriendIdSet EMPTY = new FriendIdSet(new int[0]);
+
+    private final int[] ids;
+
+    private FriendIdSet(int[] ids) {
+        this.ids = ids;
+    }
+
+    public static FriendIdSet empty() {
+        return EMPTY;
+    }
+
+    public static FriendIdSet of(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return EMPTY;
+        }
+        int[] sorted = ids.stream()
+                .filter(id -> id != null)
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        return new FriendIdSet(sorted);
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public int[] toArray() {
+        return ids.clone();
+    }
+
+    // Danh sách dùng để bind vào "IN :ids": IN () rỗng không hợp lệ, id luôn dương nên -1 không khớp dòng nào.
+    public List<Integer> toParameterList() {
+        return ids.length == 0 ? List.of(-1) : toList();
+    }
+
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
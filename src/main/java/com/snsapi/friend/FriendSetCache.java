@@ -0,0 +1,26 @@
+package com.snsapi.friend;
+
+import com.snsapi.utils.GenerationalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.IntFunction;
+
+// Bộ nhớ đệm LRU có giới hạn (friend.cache.max-users) cho tập id bạn bè của từng người dùng.
+// AddFriendService xoá mục của cả hai phía sau mỗi thay đổi quan hệ bạn bè.
+@Component
+public class FriendSetCache {
+    private final GenerationalCache<Integer, FriendIdSet> cache;
+
+    public FriendSetCache(@Value("${friend.cache.max-users:10000}") int maxUsers) {
+        this.cache = new GenerationalCache<>(maxUsers);
+    }
+
+    public FriendIdSet get(int userId, IntFunction<FriendIdSet> loader) {
+        return cache.get(userId, loader::apply);
+    }
+
+    public void invalidate(int userId) {
+        cache.invalidate(userId);
+    }
+}
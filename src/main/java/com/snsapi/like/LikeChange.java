@@ -0,0 +1,13 @@
+package com.snsapi.like;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LikeChange {
+    private LikeTarget target;
+    private int targetId;
+    private int userId;
+    private boolean liked;
+}
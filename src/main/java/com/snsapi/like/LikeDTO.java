@@ -1,5 +1,6 @@
 package com.snsapi.like;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.snsapi.user.UserDTO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,7 +11,14 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class LikeDTO {
     private Integer likeCount;
+    private Boolean likedByMe;
     private List<UserDTO> likeByUsers;
+
+    public LikeDTO(Integer likeCount, List<UserDTO> likeByUsers) {
+        this.likeCount = likeCount;
+        this.likeByUsers = likeByUsers;
+    }
 }
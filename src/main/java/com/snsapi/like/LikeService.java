@@ -0,0 +1,95 @@
+package com.snsapi.like;
+
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.post.PostService;
+import com.snsapi.user.UserDTO;
+import com.snsapi.user.UserSummaryCache;
+import com.snsapi.utils.AfterCommit;
+import com.snsapi.utils.CursorPage;
+import com.snsapi.utils.OpaqueCursor;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class LikeService {
+    private final LikeStore likeStore;
+    private final LikeWriteBehindBuffer writeBehindBuffer;
+    private final LikedByMeResolver likedByMeResolver;
+    private final UserSummaryCache userSummaryCache;
+
+    @Value("${like.preview.size:3}")
+    private int previewSize;
+
+    public LikeToggleResult toggle(LikeTarget target, Integer targetId, Integer userId) {
+        LikeToggleResult result = writeBehindBuffer.isEnabled()
+                ? writeBehindBuffer.toggle(target, targetId, userId)
+                : likeStore.toggle(target, targetId, userId);
+        AfterCommit.run(() -> likedByMeResolver.onToggle(target, targetId, userId, result.isLiked()));
+        return result;
+    }
+
+    // Những id trong trang mà người xem đã thích; rỗng nếu không có người xem.
+    public Set<Integer> likedByMe(LikeTarget target, Collection<Integer> targetIds, Integer viewerId) {
+        return likedByMeResolver.resolve(target, targetIds, viewerId);
+    }
+
+    // Số lượt thích hiển thị = like_count trong database + phần đang chờ ghi.
+    public int displayCount(LikeTarget target, Integer targetId, int storedCount) {
+        return Math.max(0, storedCount + writeBehindBuffer.pendingDelta(target, targetId));
+    }
+
+    // Thay đổi còn nằm trong bộ đệm ghi trễ, theo targetId; rỗng khi tắt ghi trễ. Đọc trước các cột phiên bản trong
+    // database, để một lần flush xen giữa làm ETag khác đi chứ không trùng với phiên bản cũ.
+    public Map<Integer, LikeWriteBehindBuffer.PendingLikes> pendingLikes(LikeTarget target) {
+        return writeBehindBuffer.pendingLikes(target);
+    }
+
+    // Vài người thích đầu tiên cho mỗi đối tượng, bạn bè của người xem trước.
+    public Map<Integer, List<UserDTO>> previewLikers(LikeTarget target, Collection<Integer> targetIds, FriendIdSet friends) {
+        Map<Integer, List<Integer>> likerIds = likeStore.findLikerPreviews(target, targetIds, friends, previewSize);
+        Map<Integer, UserDTO> users = userSummaryCache.getAll(likerIds.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toSet()));
+        Map<Integer, List<UserDTO>> previews = new LinkedHashMap<>();
+        likerIds.forEach((targetId, ids) -> previews.put(targetId, toSummaries(ids, users)));
+        return previews;
+    }
+
+    public CursorPage<UserDTO> getLikers(LikeTarget target, Integer targetId, String cursor, int size) {
+        if (!likeStore.exists(target, targetId)) {
+            throw new EntityNotFoundException(target == LikeTarget.POST ? "Bài viết không tồn tại." : "Bình luận không tồn tại.");
+        }
+        int pageSize = PostService.clampPageSize(size);
+        List<Integer> likerIds = likeStore.findLikerIds(target, targetId, OpaqueCursor.decodeId(cursor, 0), pageSize + 1);
+
+        String nextCursor = null;
+        if (likerIds.size() > pageSize) {
+            likerIds = likerIds.subList(0, pageSize);
+            nextCursor = OpaqueCursor.encode(likerIds.get(pageSize - 1));
+        }
+        return new CursorPage<>(toSummaries(likerIds, userSummaryCache.getAll(likerIds)), nextCursor);
+    }
+
+    // Giữ thứ tự của ids; bỏ qua id không còn người dùng.
+    private List<UserDTO> toSummaries(List<Integer> ids, Map<Integer, UserDTO> users) {
+        List<UserDTO> summaries = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            UserDTO user = users.get(id);
+            if (user != null) {
+                summaries.add(user);
+            }
+        }
+        return summaries;
+    }
+}
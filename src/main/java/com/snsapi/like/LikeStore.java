@@ -0,0 +1,242 @@
+package com.snsapi.like;
+
+import com.snsapi.friend.FriendIdSet;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Thao tác thích / bỏ thích trực tiếp trên bảng nối (post_likes, comment_likes) mà không nạp entity
+// hay tập người đã thích. Khoá chính (target_id, user_id) của bảng nối đảm bảo an toàn khi nhiều người bấm cùng lúc.
+@Repository
+@RequiredArgsConstructor
+public class LikeStore {
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private volatile Boolean mySql;
+
+    // INSERT IGNORE trước, khoá chính quyết định: thêm được thì là thích, trùng thì DELETE là bỏ thích.
+    // Không có SELECT ... NOT EXISTS hay DELETE trên dòng không tồn tại (cả hai đều khoá khoảng trống trong InnoDB
+    // REPEATABLE READ và gây deadlock giữa những người thích cùng một bài). Số lượt thích lấy từ chính câu UPDATE.
+    @Transactional
+    public LikeToggleResult toggle(LikeTarget target, int targetId, int userId) {
+        if (insert(target, targetId, userId) > 0) {
+            return new LikeToggleResult(true, addLikeCount(target, targetId, 1));
+        }
+        if (delete(target, targetId, userId) > 0) {
+            return new LikeToggleResult(false, addLikeCount(target, targetId, -1));
+        }
+        // Không thêm được mà cũng không xoá được: đối tượng không tồn tại (MySQL biến lỗi khoá ngoại thành cảnh báo
+        // với INSERT IGNORE), hoặc một request đồng thời vừa bỏ thích dòng đã chặn INSERT.
+        return readState(target, targetId, userId);
+    }
+
+    private int delete(LikeTarget target, int targetId, int userId) {
+        return jdbcTemplate.update("DELETE FROM " + target.getJoinTable() +
+                " WHERE " + target.getTargetColumn() + " = ? AND user_id = ?", targetId, userId);
+    }
+
+    // Trả về 1 nếu thêm được dòng mới, 0 nếu dòng đã có.
+    private int insert(LikeTarget target, int targetId, int userId) {
+        try {
+            return jdbcTemplate.update(insertSql(target), targetId, userId);
+        } catch (DataIntegrityViolationException e) {
+            throw new EntityNotFoundException(target == LikeTarget.POST ? "Bài viết không tồn tại." : "Bình luận không tồn tại.");
+        }
+    }
+
+    private static String insertSql(LikeTarget target) {
+        return "INSERT IGNORE INTO " + target.getJoinTable() + " (" + target.getTargetColumn() + ", user_id) VALUES (?, ?)";
+    }
+
+    // like_version tăng cùng mỗi lần like_count được ghi, kể cả khi lô thay đổi triệt tiêu nhau (một người bỏ thích,
+    // người khác thích): ETag của feed dùng nó để biết tập người thích đã đổi.
+    private static String counterSql(LikeTarget target) {
+        return "UPDATE " + target.getCounterTable() + " SET like_count = like_count + ?, like_version = like_version + 1 WHERE id = ?";
+    }
+
+    // Cộng delta vào like_count và trả giá trị mới. Với MySQL, LAST_INSERT_ID(expr) đưa giá trị mới về trong gói OK
+    // của chính câu UPDATE (Connector/J trả qua generated keys), nên chỉ một lượt đi - về; database khác thì đọc lại.
+    private int addLikeCount(LikeTarget target, int targetId, int delta) {
+        if (!isMySql()) {
+            jdbcTemplate.update(counterSql(target), delta, targetId);
+            Integer likeCount = jdbcTemplate.queryForObject(
+                    "SELECT like_count FROM " + target.getCounterTable() + " WHERE id = ?", Integer.class, targetId);
+            return likeCount != null ? likeCount : 0;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("UPDATE " + target.getCounterTable() +
+                    " SET like_count = LAST_INSERT_ID(like_count + ?), like_version = like_version + 1 WHERE id = ?", Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, delta);
+            statement.setInt(2, targetId);
+            return statement;
+        }, keyHolder);
+        // Connector/J không trả khoá khi giá trị là 0.
+        Number likeCount = keyHolder.getKeyList().isEmpty() ? null : keyHolder.getKey();
+        return likeCount != null ? likeCount.intValue() : 0;
+    }
+
+    private boolean isMySql() {
+        Boolean cached = mySql;
+        if (cached == null) {
+            cached = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql"));
+            mySql = cached;
+        }
+        return Boolean.TRUE.equals(cached);
+    }
+
+    // Trạng thái hiện tại (đã thích chưa, số lượt thích) trong một câu truy vấn.
+    public LikeToggleResult readState(LikeTarget target, int targetId, int userId) {
+        try {
+            return jdbcTemplate.queryForObject("SELECT t.like_count, " +
+                            "CASE WHEN EXISTS (SELECT 1 FROM " + target.getJoinTable() + " l WHERE l." + target.getTargetColumn() +
+                            " = t.id AND l.user_id = ?) THEN 1 ELSE 0 END " +
+                            "FROM " + target.getCounterTable() + " t WHERE t.id = ?",
+                    (rs, rowNum) -> new LikeToggleResult(rs.getInt(2) == 1, rs.getInt(1)), userId, targetId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new EntityNotFoundException(target == LikeTarget.POST ? "Bài viết không tồn tại." : "Bình luận không tồn tại.");
+        }
+    }
+
+    // Ghi một lô thay đổi bằng JDBC batch: DELETE cho bỏ thích, INSERT IGNORE cho thích,
+    // rồi cộng like_count theo số dòng thực sự thay đổi.
+    @Transactional
+    public void applyBatch(List<LikeChange> changes) {
+        for (LikeTarget target : LikeTarget.values()) {
+            List<Object[]> deletes = new ArrayList<>();
+            List<Object[]> inserts = new ArrayList<>();
+            List<LikeChange> deleted = new ArrayList<>();
+            List<LikeChange> inserted = new ArrayList<>();
+            for (LikeChange change : changes) {
+                if (change.getTarget() != target) {
+                    continue;
+                }
+                if (change.isLiked()) {
+                    inserts.add(new Object[]{change.getTargetId(), change.getUserId()});
+                    inserted.add(change);
+                } else {
+                    deletes.add(new Object[]{change.getTargetId(), change.getUserId()});
+                    deleted.add(change);
+                }
+            }
+
+            Map<Integer, Integer> deltas = new HashMap<>();
+            if (!deletes.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate("DELETE FROM " + target.getJoinTable() +
+                        " WHERE " + target.getTargetColumn() + " = ? AND user_id = ?", deletes);
+                addDeltas(deltas, deleted, counts, -1);
+            }
+            if (!inserts.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate(insertSql(target), inserts);
+                addDeltas(deltas, inserted, counts, 1);
+            }
+
+            // Mọi đối tượng có dòng thay đổi, kể cả khi delta bằng 0, để like_version tăng.
+            List<Object[]> counterUpdates = new ArrayList<>();
+            deltas.forEach((targetId, delta) -> counterUpdates.add(new Object[]{delta, targetId}));
+            if (!counterUpdates.isEmpty()) {
+                jdbcTemplate.batchUpdate(counterSql(target), counterUpdates);
+            }
+        }
+    }
+
+    // Dùng khi cả lô bị từ chối (ví dụ bài viết vừa bị xoá): ghi từng thay đổi, bỏ qua dòng lỗi.
+    @Transactional
+    public void apply(LikeChange change) {
+        LikeTarget target = change.getTarget();
+        int changed = change.isLiked()
+                ? insert(target, change.getTargetId(), change.getUserId())
+                : delete(target, change.getTargetId(), change.getUserId());
+        if (changed > 0) {
+            jdbcTemplate.update(counterSql(target), change.isLiked() ? 1 : -1, change.getTargetId());
+        }
+    }
+
+    // Id của tối đa `limit` người thích cho mỗi đối tượng, bạn bè của người xem đứng trước; một câu truy vấn cho cả trang.
+    // Chỉ đọc bảng nối; tên và ảnh đại diện lấy từ UserSummaryCache.
+    public Map<Integer, List<Integer>> findLikerPreviews(LikeTarget target, Collection<Integer> targetIds,
+                                                         FriendIdSet friends, int limit) {
+        Map<Integer, List<Integer>> previews = new LinkedHashMap<>();
+        if (targetIds.isEmpty() || limit <= 0) {
+            return previews;
+        }
+        String sql = "SELECT x.target_id, x.user_id FROM (" +
+                "SELECT l." + target.getTargetColumn() + " AS target_id, l.user_id, " +
+                "ROW_NUMBER() OVER (PARTITION BY l." + target.getTargetColumn() +
+                " ORDER BY CASE WHEN l.user_id IN (:friendIds) THEN 0 ELSE 1 END, l.user_id) AS rn " +
+                "FROM " + target.getJoinTable() + " l " +
+                "WHERE l." + target.getTargetColumn() + " IN (:targetIds)) x " +
+                "WHERE x.rn <= :limit ORDER BY x.target_id, x.rn";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("friendIds", friends.toParameterList())
+                .addValue("targetIds", targetIds)
+                .addValue("limit", limit);
+        namedJdbcTemplate.query(sql, params, rs -> {
+            previews.computeIfAbsent(rs.getInt("target_id"), id -> new ArrayList<>()).add(rs.getInt("user_id"));
+        });
+        return previews;
+    }
+
+    // Những đối tượng trong targetIds mà userId đã thích.
+    public Set<Integer> findLikedTargetIds(LikeTarget target, Collection<Integer> targetIds, int userId) {
+        if (targetIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("targetIds", targetIds)
+                .addValue("userId", userId);
+        return new HashSet<>(namedJdbcTemplate.queryForList("SELECT " + target.getTargetColumn() +
+                " FROM " + target.getJoinTable() + " WHERE user_id = :userId AND " + target.getTargetColumn() +
+                " IN (:targetIds)", params, Integer.class));
+    }
+
+    // Tất cả đối tượng userId đã thích, tối đa limit dòng; dùng để nạp bộ nhớ đệm likedByMe.
+    public List<Integer> findLikedTargetIdsByUser(LikeTarget target, int userId, int limit) {
+        return jdbcTemplate.queryForList("SELECT " + target.getTargetColumn() + " FROM " + target.getJoinTable() +
+                " WHERE user_id = ? LIMIT ?", Integer.class, userId, limit);
+    }
+
+    // Id người thích theo trang, sắp theo user_id; afterUserId là id cuối của trang trước.
+    public List<Integer> findLikerIds(LikeTarget target, int targetId, int afterUserId, int limit) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM " + target.getJoinTable() +
+                        " WHERE " + target.getTargetColumn() + " = ? AND user_id > ? ORDER BY user_id LIMIT ?",
+                Integer.class, targetId, afterUserId, limit);
+    }
+
+    public boolean exists(LikeTarget target, int targetId) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + target.getCounterTable() + " WHERE id = ?",
+                Integer.class, targetId);
+        return count != null && count > 0;
+    }
+
+    private void addDeltas(Map<Integer, Integer> deltas, List<LikeChange> changes, int[] counts, int sign) {
+        for (int i = 0; i < counts.length; i++) {
+            // Driver có thể trả SUCCESS_NO_INFO khi gộp batch; coi như dòng đã thay đổi, CounterRepairJob sẽ sửa nếu lệch.
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                deltas.merge(changes.get(i).getTargetId(), sign, Integer::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.snsapi.like;
+
+import lombok.Getter;
+
+@Getter
+public enum LikeTarget {
+    POST("post_likes", "post_id", "post"),
+    COMMENT("comment_likes", "comment_id", "comment");
+
+    private final String joinTable;
+    private final String targetColumn;
+    private final String counterTable;
+
+    LikeTarget(String joinTable, String targetColumn, String counterTable) {
+        this.joinTable = joinTable;
+        this.targetColumn = targetColumn;
+        this.counterTable = counterTable;
+    }
+}
@@ -0,0 +1,11 @@
+package com.snsapi.like;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LikeToggleResult {
+    private boolean liked;
+    private int likeCount;
+}
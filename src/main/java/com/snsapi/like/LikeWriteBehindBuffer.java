@@ -0,0 +1,341 @@
+package com.snsapi.like;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Chế độ ghi trễ cho lượt thích (bật bằng like.write-behind.enabled). Mỗi lần bấm chỉ cập nhật bộ đệm trong bộ nhớ,
+// gộp theo (đối tượng, người dùng) - lần bấm sau cùng thắng. Bộ đệm được ghi xuống database theo lô
+// sau mỗi like.write-behind.flush-interval-ms hoặc khi đủ like.write-behind.max-pending mục, và khi ứng dụng tắt.
+@Component
+public class LikeWriteBehindBuffer {
+    private static final int STRIPES = 16;
+
+    private final LikeStore likeStore;
+    private final boolean enabled;
+    private final int maxPending;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // Chênh lệch like_count chưa ghi xuống database, theo từng đối tượng; dùng để phủ lên số đọc từ database.
+    private final ConcurrentMap<TargetKey, Integer> pendingDeltas = new ConcurrentHashMap<>();
+    // Tổng có dấu của userId chưa ghi (+ thích, - bỏ thích): đổi cả khi chênh lệch like_count không đổi.
+    private final ConcurrentMap<TargetKey, Long> pendingLikerSums = new ConcurrentHashMap<>();
+    // like_count trong database của các đối tượng đang có thay đổi chờ ghi, để mỗi lần bấm không phải đọc lại.
+    // Chỉ được nạp và chỉnh dưới flushLock, nên luôn bằng database sau các lô đã ghi; bị bỏ khi hết thay đổi chờ.
+    private final ConcurrentMap<TargetKey, Integer> baseCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    // Chỉ có khi bật ghi trễ: flush sớm khi bộ đệm đầy.
+    private final ExecutorService flushExecutor;
+    private final Object flushLock = new Object();
+
+    public LikeWriteBehindBuffer(LikeStore likeStore,
+                                 @Value("${like.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${like.write-behind.max-pending:5000}") int maxPending) {
+        this.likeStore = likeStore;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.flushExecutor = enabled ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LikeToggleResult toggle(LikeTarget target, int targetId, int userId) {
+        LikeKey key = new LikeKey(new TargetKey(target, targetId), userId);
+        Stripe stripe = stripeFor(key);
+
+        boolean liked;
+        while (true) {
+            LikeToggleResult dbState = stripe.contains(key) ? null : likeStore.readState(target, targetId, userId);
+            synchronized (stripe) {
+                PendingLike entry = stripe.pending.get(key);
+                if (entry == null) {
+                    PendingLike inflight = stripe.inflight.get(key);
+                    if (inflight == null && dbState == null) {
+                        // Mục vừa được flush xong giữa hai bước: đọc lại trạng thái từ database.
+                        continue;
+                    }
+                    boolean current = inflight != null ? inflight.desired : dbState.isLiked();
+                    entry = new PendingLike(current, current);
+                    stripe.pending.put(key, entry);
+                    pendingCount.incrementAndGet();
+                }
+                entry.desired = !entry.desired;
+                liked = entry.desired;
+                pendingDeltas.merge(key.target, liked ? 1 : -1, Integer::sum);
+                pendingDeltas.remove(key.target, 0);
+                pendingLikerSums.merge(key.target, liked ? (long) userId : -(long) userId, Long::sum);
+                pendingLikerSums.remove(key.target, 0L);
+            }
+            break;
+        }
+
+        if (pendingCount.get() >= maxPending && flushQueued.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushQueued.set(false);
+                flush();
+            });
+        }
+        return new LikeToggleResult(liked, countLikes(key.target));
+    }
+
+    public int pendingDelta(LikeTarget target, int targetId) {
+        if (!enabled) {
+            return 0;
+        }
+        return pendingDeltas.getOrDefault(new TargetKey(target, targetId), 0);
+    }
+
+    // null nếu không có thay đổi nào đang chờ cho cặp này, khi đó database là nguồn đúng.
+    public Boolean pendingState(LikeTarget target, int targetId, int userId) {
+        if (!enabled) {
+            return null;
+        }
+        LikeKey key = new LikeKey(new TargetKey(target, targetId), userId);
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            PendingLike entry = stripe.pending.get(key);
+            if (entry == null) {
+                entry = stripe.inflight.get(key);
+            }
+            return entry != null ? entry.desired : null;
+        }
+    }
+
+    // Thay đổi chưa ghi của mọi đối tượng một loại, targetId -> (delta, tổng userId); dùng cho ETag.
+    // Đối tượng mà các lượt bấm đã triệt tiêu nhau không có trong map.
+    public Map<Integer, PendingLikes> pendingLikes(LikeTarget target) {
+        Map<Integer, PendingLikes> pending = new HashMap<>();
+        if (!enabled) {
+            return pending;
+        }
+        Set<TargetKey> keys = new HashSet<>(pendingDeltas.keySet());
+        keys.addAll(pendingLikerSums.keySet());
+        for (TargetKey key : keys) {
+            int delta = pendingDeltas.getOrDefault(key, 0);
+            long likerSum = pendingLikerSums.getOrDefault(key, 0L);
+            if (key.target == target && (delta != 0 || likerSum != 0)) {
+                pending.put(key.targetId, new PendingLikes(delta, likerSum));
+            }
+        }
+        return pending;
+    }
+
+    // Mọi thay đổi đang chờ (kể cả đang được flush) của một người dùng với một loại đối tượng: targetId -> đã thích.
+    // Duyệt toàn bộ bộ đệm (tối đa like.write-behind.max-pending mục), chỉ dùng khi nạp bộ nhớ đệm likedByMe.
+    public Map<Integer, Boolean> pendingStates(LikeTarget target, int userId) {
+        Map<Integer, Boolean> states = new HashMap<>();
+        if (!enabled) {
+            return states;
+        }
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                collect(stripe.inflight, target, userId, states);
+                collect(stripe.pending, target, userId, states);
+            }
+        }
+        return states;
+    }
+
+    private static void collect(Map<LikeKey, PendingLike> entries, LikeTarget target, int userId, Map<Integer, Boolean> states) {
+        entries.forEach((key, entry) -> {
+            if (key.userId == userId && key.target.target == target) {
+                states.put(key.target.targetId, entry.desired);
+            }
+        });
+    }
+
+    private int countLikes(TargetKey target) {
+        Integer base = baseCounts.get(target);
+        if (base == null) {
+            // Không đọc giữa lúc một lô đã vào database mà chưa được trừ khỏi pendingDeltas.
+            synchronized (flushLock) {
+                base = baseCounts.computeIfAbsent(target,
+                        key -> likeStore.readState(key.target, key.targetId, 0).getLikeCount());
+            }
+        }
+        return Math.max(0, base + pendingDelta(target.target, target.targetId));
+    }
+
+    @Scheduled(fixedDelayString = "${like.write-behind.flush-interval-ms:200}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            List<LikeChange> changes = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.inflight = stripe.pending;
+                    stripe.pending = new HashMap<>();
+                    pendingCount.addAndGet(-stripe.inflight.size());
+                    stripe.inflight.forEach((key, entry) -> {
+                        if (entry.desired != entry.base) {
+                            changes.add(new LikeChange(key.target.target, key.target.targetId, key.userId, entry.desired));
+                        }
+                    });
+                }
+            }
+            if (changes.isEmpty()) {
+                completeFlush();
+                return;
+            }
+
+            try {
+                likeStore.applyBatch(changes);
+            } catch (DataAccessException batchFailure) {
+                try {
+                    for (LikeChange change : changes) {
+                        applyOne(change);
+                        settle(change);
+                    }
+                } catch (DataAccessException e) {
+                    // Database không ghi được: trả các mục chưa ghi về bộ đệm để lần flush sau thử lại.
+                    restoreInflight();
+                    throw e;
+                }
+            }
+            completeFlush();
+        }
+    }
+
+    private void applyOne(LikeChange change) {
+        try {
+            likeStore.apply(change);
+        } catch (EntityNotFoundException e) {
+            // Đối tượng đã bị xoá: bỏ thay đổi này.
+        }
+    }
+
+    // Một dòng đã ghi xong trong lúc ghi từng dòng: coi nó là đã ở trong database ngay, để nếu dòng sau lỗi thì
+    // restoreInflight không trả nó về bộ đệm như chưa ghi (và đếm nó hai lần).
+    private void settle(LikeChange change) {
+        LikeKey key = new LikeKey(new TargetKey(change.getTarget(), change.getTargetId()), change.getUserId());
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            PendingLike entry = stripe.inflight.get(key);
+            if (entry != null) {
+                markWritten(key, entry);
+            }
+        }
+    }
+
+    private void completeFlush() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.inflight.forEach(this::markWritten);
+                stripe.inflight = new HashMap<>();
+            }
+        }
+        baseCounts.keySet().removeIf(target -> !pendingDeltas.containsKey(target));
+    }
+
+    // Chuyển phần đóng góp của mục từ bộ đệm sang số đã ghi; gọi khi giữ khoá của stripe và flushLock.
+    private void markWritten(LikeKey key, PendingLike entry) {
+        int contribution = (entry.desired ? 1 : 0) - (entry.base ? 1 : 0);
+        if (contribution != 0) {
+            pendingDeltas.merge(key.target, -contribution, Integer::sum);
+            pendingDeltas.remove(key.target, 0);
+            pendingLikerSums.merge(key.target, -(long) contribution * key.userId, Long::sum);
+            pendingLikerSums.remove(key.target, 0L);
+            baseCounts.computeIfPresent(key.target, (target, count) -> count + contribution);
+        }
+        entry.base = entry.desired;
+    }
+
+    private void restoreInflight() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.inflight.forEach((key, entry) -> {
+                    PendingLike newer = stripe.pending.get(key);
+                    if (newer != null) {
+                        newer.base = entry.base;
+                    } else {
+                        stripe.pending.put(key, entry);
+                        pendingCount.incrementAndGet();
+                    }
+                });
+                stripe.inflight = new HashMap<>();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        if (enabled) {
+            flushExecutor.shutdown();
+            flush();
+        }
+    }
+
+    private Stripe stripeFor(LikeKey key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+
+    private static class Stripe {
+        private Map<LikeKey, PendingLike> pending = new HashMap<>();
+        private Map<LikeKey, PendingLike> inflight = new HashMap<>();
+
+        private synchronized boolean contains(LikeKey key) {
+            return pending.containsKey(key) || inflight.containsKey(key);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PendingLikes {
+        private final int delta;
+        private final long likerSum;
+    }
+
+    @AllArgsConstructor
+    private static class PendingLike {
+        private boolean base;
+        private boolean desired;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class TargetKey {
+        private final LikeTarget target;
+        private final int targetId;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class LikeKey {
+        private final TargetKey target;
+        private final int userId;
+    }
+}
@@ -0,0 +1,133 @@
+package com.snsapi.like;
+
+import com.snsapi.utils.GenerationalCache;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Trả lời "người xem đã thích chưa" cho cả một trang bài viết / bình luận bằng một câu IN cho mỗi loại.
+// Khi bật like.liked-cache.enabled, giữ trong bộ nhớ tập đầy đủ các id mà người dùng đã thích (chỉ với người có
+// không quá like.liked-cache.max-per-user lượt thích), cập nhật ngay khi họ bấm thích, nên người dùng hoạt động
+// nhiều không cần truy vấn database. Thay đổi đang chờ trong bộ đệm ghi trễ luôn được phủ lên kết quả.
+@Component
+public class LikedByMeResolver {
+    // Đánh dấu người dùng có quá nhiều lượt thích, để không nạp lại tập của họ mỗi lần đọc.
+    private static final Set<Integer> TOO_MANY = Collections.emptySet();
+
+    private final LikeStore likeStore;
+    private final LikeWriteBehindBuffer writeBehindBuffer;
+    private final boolean cacheEnabled;
+    private final int maxPerUser;
+
+    // Mỗi lượt bấm tăng thế hệ của khoá; tập nạp từ database chỉ được lưu nếu không có lượt bấm nào xen giữa.
+    private final GenerationalCache<CacheKey, Set<Integer>> cache;
+
+    public LikedByMeResolver(LikeStore likeStore,
+                             LikeWriteBehindBuffer writeBehindBuffer,
+                             @Value("${like.liked-cache.enabled:false}") boolean cacheEnabled,
+                             @Value("${like.liked-cache.max-users:10000}") int maxUsers,
+                             @Value("${like.liked-cache.max-per-user:1000}") int maxPerUser) {
+        this.likeStore = likeStore;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.cacheEnabled = cacheEnabled;
+        this.maxPerUser = maxPerUser;
+        this.cache = new GenerationalCache<>(maxUsers);
+    }
+
+    public Set<Integer> resolve(LikeTarget target, Collection<Integer> targetIds, Integer viewerId) {
+        Set<Integer> liked = new HashSet<>();
+        if (viewerId == null || targetIds.isEmpty()) {
+            return liked;
+        }
+
+        Set<Integer> cached = cacheEnabled ? loadCached(target, viewerId) : null;
+        if (cached != null && cached != TOO_MANY) {
+            synchronized (cached) {
+                for (Integer targetId : targetIds) {
+                    if (cached.contains(targetId)) {
+                        liked.add(targetId);
+                    }
+                }
+            }
+        } else {
+            liked.addAll(likeStore.findLikedTargetIds(target, targetIds, viewerId));
+        }
+
+        if (writeBehindBuffer.isEnabled()) {
+            for (Integer targetId : targetIds) {
+                Boolean pending = writeBehindBuffer.pendingState(target, targetId, viewerId);
+                if (Boolean.TRUE.equals(pending)) {
+                    liked.add(targetId);
+                } else if (Boolean.FALSE.equals(pending)) {
+                    liked.remove(targetId);
+                }
+            }
+        }
+        return liked;
+    }
+
+    public void onToggle(LikeTarget target, int targetId, int userId, boolean liked) {
+        if (!cacheEnabled) {
+            return;
+        }
+        cache.update(new CacheKey(target, userId), cached -> {
+            if (cached == TOO_MANY) {
+                return cached;
+            }
+            synchronized (cached) {
+                if (liked) {
+                    cached.add(targetId);
+                } else {
+                    cached.remove(targetId);
+                }
+                return cached.size() > maxPerUser ? null : cached;
+            }
+        });
+    }
+
+    // TOO_MANY khi người dùng có quá nhiều lượt thích để giữ trọn trong bộ nhớ.
+    private Set<Integer> loadCached(LikeTarget target, int userId) {
+        CacheKey key = new CacheKey(target, userId);
+        Set<Integer> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = cache.generation(key);
+        // Chụp thay đổi đang chờ ghi TRƯỚC khi đọc database rồi phủ lên tập nạp được: thay đổi được flush giữa hai bước
+        // thì có mặt ở cả hai nguồn, còn nếu chỉ đọc database thì tập lưu lại sẽ thiếu thay đổi đó sau khi nó rời bộ đệm.
+        Map<Integer, Boolean> pending = writeBehindBuffer.pendingStates(target, userId);
+        Collection<Integer> ids = likeStore.findLikedTargetIdsByUser(target, userId, maxPerUser + 1);
+        if (ids.size() > maxPerUser) {
+            cached = TOO_MANY;
+        } else {
+            cached = new HashSet<>(ids);
+            Set<Integer> loaded = cached;
+            pending.forEach((targetId, liked) -> {
+                if (liked) {
+                    loaded.add(targetId);
+                } else {
+                    loaded.remove(targetId);
+                }
+            });
+            if (cached.size() > maxPerUser) {
+                cached = TOO_MANY;
+            }
+        }
+        return cache.putIfCurrent(key, cached, generation);
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class CacheKey {
+        private final LikeTarget target;
+        private final int userId;
+    }
+}
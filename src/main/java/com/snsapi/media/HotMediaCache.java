@@ -0,0 +1,225 @@
+package com.snsapi.media;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bộ nhớ đệm LRU cho các tệp nhỏ được đọc nhiều nhất (ảnh đại diện, bản thu nhỏ), giữ trong direct ByteBuffer
+// ngoài heap nên không làm GC chậm đi.
+// - Tệp chỉ được nhận sau media.hot-cache.admit-after-hits lượt đọc, nên tệp đọc một lần không đẩy tệp nóng ra.
+// - Tổng direct memory (kể cả buffer rảnh) không vượt media.hot-cache.max-bytes; tệp lớn hơn
+//   media.hot-cache.max-file-bytes không được nhận.
+// - Buffer cấp theo lớp kích thước lũy thừa 2; buffer của mục bị bỏ được dùng lại cho tệp nhận sau, khi không
+//   còn Lease nào đang ghi nó ra response.
+// Mục bị bỏ khi kích thước hoặc thời điểm sửa của tệp đã đổi.
+@Component
+public class HotMediaCache {
+    private static final int MIN_BUFFER_BYTES = 1024;
+
+    private final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> candidates;
+    private final Map<Integer, ArrayDeque<ByteBuffer>> free = new HashMap<>();
+    private final long maxBytes;
+    private final int maxFileBytes;
+    private final int admitAfterHits;
+    private long allocatedBytes;
+
+    public HotMediaCache(@Value("${media.hot-cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${media.hot-cache.max-file-bytes:65536}") int maxFileBytes,
+                         @Value("${media.hot-cache.admit-after-hits:2}") int admitAfterHits,
+                         @Value("${media.hot-cache.max-candidates:10000}") int maxCandidates) {
+        this.maxBytes = maxBytes;
+        this.maxFileBytes = maxFileBytes;
+        this.admitAfterHits = admitAfterHits;
+        // Đếm lượt đọc của tệp chưa được nhận; quên tệp lâu không được đọc để bảng không lớn mãi.
+        this.candidates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maxCandidates;
+            }
+        };
+    }
+
+    public boolean accepts(long size) {
+        return size > 0 && size <= maxFileBytes && capacityOf(size) <= maxBytes;
+    }
+
+    // Lease của nội dung tệp; null nếu tệp chưa đủ lượt đọc để được nhận, bị cắt ngắn khi đang đọc, hoặc mọi buffer
+    // đều đang được ghi ra. Nơi gọi đã kiểm tra accepts(size) và phải close Lease sau khi ghi xong.
+    public Lease acquire(Path path, String fileName, long size, long lastModified) throws IOException {
+        ByteBuffer buffer;
+        synchronized (this) {
+            Entry entry = cache.get(fileName);
+            if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+                return new Lease(entry);
+            }
+            if (entry != null) {
+                // Tệp nóng vừa bị ghi đè: nạp lại ngay, không đếm lượt lại từ đầu.
+                remove(fileName);
+            } else if (!admit(fileName)) {
+                return null;
+            }
+            buffer = take(capacityOf(size));
+            if (buffer == null) {
+                return null;
+            }
+        }
+
+        buffer.clear();
+        buffer.limit((int) size);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                recycle(buffer);
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            if (buffer.hasRemaining()) {
+                // Tệp bị cắt ngắn giữa lúc đọc thuộc tính và lúc đọc nội dung: không lưu.
+                recycle(buffer);
+                return null;
+            }
+            buffer.flip();
+            remove(fileName);
+            Entry entry = new Entry(buffer, (int) size, lastModified);
+            cache.put(fileName, entry);
+            return new Lease(entry);
+        }
+    }
+
+    public synchronized void invalidate(String fileName) {
+        remove(fileName);
+        candidates.remove(fileName);
+    }
+
+    private boolean admit(String fileName) {
+        int hits = candidates.merge(fileName, 1, Integer::sum);
+        if (hits < admitAfterHits) {
+            return false;
+        }
+        candidates.remove(fileName);
+        return true;
+    }
+
+    // Buffer rảnh cùng lớp nếu có; nếu không thì cấp mới, trước đó bỏ buffer rảnh khác lớp rồi tới mục cũ nhất
+    // cho tới khi đủ chỗ.
+    private ByteBuffer take(int capacity) {
+        while (true) {
+            ArrayDeque<ByteBuffer> sameClass = free.get(capacity);
+            if (sameClass != null && !sameClass.isEmpty()) {
+                return sameClass.pop();
+            }
+            if (allocatedBytes + capacity <= maxBytes) {
+                allocatedBytes += capacity;
+                return ByteBuffer.allocateDirect(capacity);
+            }
+            if (!dropFreeBuffer()) {
+                Iterator<Entry> eldest = cache.values().iterator();
+                if (!eldest.hasNext()) {
+                    return null;
+                }
+                Entry evicted = eldest.next();
+                eldest.remove();
+                retire(evicted);
+            }
+        }
+    }
+
+    private boolean dropFreeBuffer() {
+        for (ArrayDeque<ByteBuffer> buffers : free.values()) {
+            ByteBuffer dropped = buffers.poll();
+            if (dropped != null) {
+                allocatedBytes -= dropped.capacity();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(String fileName) {
+        Entry removed = cache.remove(fileName);
+        if (removed != null) {
+            retire(removed);
+        }
+    }
+
+    private void retire(Entry entry) {
+        entry.retired = true;
+        if (entry.leases == 0) {
+            recycle(entry.buffer);
+        }
+    }
+
+    private void release(Entry entry) {
+        entry.leases--;
+        if (entry.retired && entry.leases == 0) {
+            recycle(entry.buffer);
+        }
+    }
+
+    private void recycle(ByteBuffer buffer) {
+        free.computeIfAbsent(buffer.capacity(), capacity -> new ArrayDeque<>()).push(buffer);
+    }
+
+    private static int capacityOf(long size) {
+        return Math.max(MIN_BUFFER_BYTES, Integer.highestOneBit((int) Math.max(size - 1, 1)) << 1);
+    }
+
+    private static class Entry {
+        private final ByteBuffer buffer;
+        private final int size;
+        private final long lastModified;
+        private int leases;
+        private boolean retired;
+
+        private Entry(ByteBuffer buffer, int size, long lastModified) {
+            this.buffer = buffer;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    // Giữ buffer của một mục khỏi bị dùng lại trong lúc ghi ra response.
+    public class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        // Chỉ gọi trong khối synchronized của HotMediaCache.
+        private Lease(Entry entry) {
+            this.entry = entry;
+            entry.leases++;
+        }
+
+        // Bản chỉ đọc, vị trí 0, giới hạn ở kích thước tệp.
+        public ByteBuffer getBytes() {
+            return entry.buffer.asReadOnlyBuffer();
+        }
+
+        @Override
+        public void close() {
+            synchronized (HotMediaCache.this) {
+                if (!closed) {
+                    closed = true;
+                    release(entry);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.snsapi.media;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Các bản thu nhỏ cố định được sinh sau khi tải ảnh lên, lưu ở upload.image/variants/<tên>/<tên tệp gốc>.jpg
+// và được phục vụ qua /image/** như ảnh gốc. Ảnh nhỏ hơn kích thước đích không bị phóng to.
+@Getter
+@RequiredArgsConstructor
+public enum ImageVariant {
+    // Cắt vuông ở giữa rồi thu về size x size.
+    AVATAR("avatar", 128, true),
+    // Hai bản còn lại giới hạn chiều rộng, chiều cao theo tỉ lệ; FEED là chiều rộng tối đa của ảnh trong bảng tin.
+    THUMBNAIL("thumbnail", 320, false),
+    FEED("feed", 1080, false);
+
+    public static final List<ImageVariant> FOR_MEDIA = List.of(THUMBNAIL, FEED);
+    public static final List<ImageVariant> FOR_AVATAR = List.of(AVATAR, THUMBNAIL);
+
+    private static final String DIRECTORY = "variants";
+
+    private final String key;
+    private final int size;
+    private final boolean square;
+
+    // Đường dẫn tương đối so với upload.image.
+    public String fileNameOf(String originalFileName) {
+        // Giữ cả đuôi gốc để a.png và a.jpg không trùng bản thu nhỏ.
+        return DIRECTORY + "/" + key + "/" + originalFileName + ".jpg";
+    }
+
+    // Tên tệp gốc nếu fileName là đường dẫn bản thu nhỏ loại này, ngược lại null.
+    public String originalOf(String fileName) {
+        String prefix = DIRECTORY + "/" + key + "/";
+        if (!fileName.startsWith(prefix) || !fileName.endsWith(".jpg")) {
+            return null;
+        }
+        return fileName.substring(prefix.length(), fileName.length() - ".jpg".length());
+    }
+
+    public String urlOf(String originalFileName) {
+        return Media.urlOf(fileNameOf(originalFileName));
+    }
+
+    // Tên bản thu nhỏ -> URL, theo thứ tự của variants.
+    public static Map<String, String> urlsOf(List<ImageVariant> variants, String originalFileName) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (ImageVariant variant : variants) {
+            urls.put(variant.getKey(), variant.urlOf(originalFileName));
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,163 @@
+package com.snsapi.media;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+
+// Sinh các bản thu nhỏ JPEG từ một ảnh gốc. Ảnh được giải mã một lần cho mọi bản; thu nhỏ theo từng bước
+// một nửa (bilinear) trước bước cuối để giữ chất lượng mà không tốn như bicubic trên ảnh lớn.
+// Mỗi bản được ghi ra tệp tạm rồi đổi tên, nên /image/** không bao giờ phục vụ một tệp ghi dở.
+// Kích thước được đọc từ header trước khi giải mã: ảnh lớn hơn image.variants.max-pixels bị bỏ qua, vì ảnh giải mã
+// chiếm 4 byte mỗi điểm ảnh và một tệp nén nhỏ vẫn có thể khai báo hàng tỉ điểm ảnh.
+@Slf4j
+@Component
+public class ImageVariantGenerator {
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final long maxPixels;
+
+    public ImageVariantGenerator(@Value("${image.variants.max-pixels:25000000}") long maxPixels) {
+        this.maxPixels = maxPixels;
+    }
+
+    // false nếu tệp gốc không phải ảnh ImageIO đọc được (ví dụ video) hoặc quá lớn; không ghi gì trong trường hợp đó.
+    public boolean generate(Path original, Path uploadDir, String originalFileName, List<ImageVariant> variants)
+            throws IOException {
+        // Tệp trong MediaBlobStore định danh theo nội dung: bản thu nhỏ đã có thì không bao giờ cũ.
+        boolean existing = variants.stream()
+                .allMatch(variant -> Files.exists(uploadDir.resolve(variant.fileNameOf(originalFileName))));
+        if (existing) {
+            return true;
+        }
+        BufferedImage source = read(original);
+        if (source == null) {
+            return false;
+        }
+        BufferedImage rgb = toRgb(source);
+        for (ImageVariant variant : variants) {
+            BufferedImage resized = variant.isSquare() ? squareCrop(rgb, variant.getSize()) : fitWidth(rgb, variant.getSize());
+            write(resized, uploadDir.resolve(variant.fileNameOf(originalFileName)));
+        }
+        return true;
+    }
+
+    // null nếu không có ImageReader cho tệp hoặc ảnh vượt quá maxPixels.
+    private BufferedImage read(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Skipping image variants for {}: {}x{} exceeds {} pixels",
+                            original.getFileName(), reader.getWidth(0), reader.getHeight(0), maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage fitWidth(BufferedImage image, int maxWidth) {
+        if (image.getWidth() <= maxWidth) {
+            return image;
+        }
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * maxWidth / image.getWidth()));
+        return scale(image, maxWidth, height);
+    }
+
+    private BufferedImage squareCrop(BufferedImage image, int size) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        BufferedImage square = image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+        return side <= size ? square : scale(square, size, size);
+    }
+
+    private BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        while (currentWidth / 2 >= width && currentHeight / 2 >= height) {
+            currentWidth /= 2;
+            currentHeight /= 2;
+            current = draw(current, currentWidth, currentHeight);
+        }
+        return currentWidth == width && currentHeight == height ? current : draw(current, width, height);
+    }
+
+    private BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // JPEG không có kênh alpha: phủ ảnh lên nền trắng.
+    private BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+    private void write(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.snsapi.media;
+
+import com.snsapi.config.ExecutorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+// Sinh bản thu nhỏ trên một pool luồng riêng có hàng đợi giới hạn (ExecutorConfig.IMAGE_VARIANTS),
+// để luồng xử lý request không bao giờ giải mã hay thu nhỏ ảnh. Khi hàng đợi đầy, việc bị bỏ qua (không chạy trên
+// luồng gọi): ảnh đó không có bản thu nhỏ và client tiếp tục dùng ảnh gốc.
+@Slf4j
+@Component
+public class ImageVariantPipeline {
+    private final ImageVariantGenerator generator;
+    private final MediaRepository mediaRepository;
+    private final Path uploadDir;
+    private final Executor executor;
+
+    public ImageVariantPipeline(ImageVariantGenerator generator,
+                                MediaRepository mediaRepository,
+                                @Value("${upload.image}") String uploadDir,
+                                @Qualifier(ExecutorConfig.IMAGE_VARIANTS) Executor executor) {
+        this.generator = generator;
+        this.mediaRepository = mediaRepository;
+        this.uploadDir = Paths.get(uploadDir);
+        this.executor = executor;
+    }
+
+    // Ảnh của bài viết: khi xong đánh dấu variants_ready để response bắt đầu trả URL các bản thu nhỏ.
+    public CompletableFuture<Boolean> submitMedia(Integer mediaId, String fileName) {
+        return submit(fileName, ImageVariant.FOR_MEDIA).thenApply(generated -> {
+            if (generated) {
+                mediaRepository.markVariantsReady(mediaId);
+            }
+            return generated;
+        });
+    }
+
+    public CompletableFuture<Boolean> submitAvatar(String fileName) {
+        return submit(fileName, ImageVariant.FOR_AVATAR);
+    }
+
+    // Hoàn thành với false nếu tệp không phải ảnh, bị lỗi, hoặc hàng đợi đang đầy.
+    public CompletableFuture<Boolean> submit(String fileName, List<ImageVariant> variants) {
+        if (fileName == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> generate(fileName, variants), executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Image variant queue is full, skipping {}", fileName);
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    private boolean generate(String fileName, List<ImageVariant> variants) {
+        try {
+            return generator.generate(uploadDir.resolve(fileName), uploadDir, fileName, variants);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not generate image variants for {}", fileName, e);
+            return false;
+        }
+    }
+}
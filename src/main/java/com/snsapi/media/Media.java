@@ -1,5 +1,6 @@
 package com.snsapi.media;
 
+import com.snsapi.config.IdGeneratorAligner;
 import com.snsapi.post.Post;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -17,7 +18,9 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 public class Media {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "media_id")
+    @TableGenerator(name = "media_id", table = IdGeneratorAligner.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "media", allocationSize = IdGeneratorAligner.ALLOCATION_SIZE)
     private Integer id;
 
     @ManyToOne
@@ -27,10 +30,23 @@ public class Media {
     @Column(name = "media_type")
     private String mediaType;
 
+    // Với tệp trong MediaBlobStore là đường dẫn ab/cd/<hash>.<đuôi>.
     @Column(name = "file_name")
     private String fileName;
 
+    // Blob mà Media này giữ một tham chiếu (MediaBlob.refCount); null với dữ liệu cũ.
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
+    // Bật bởi ImageVariantPipeline khi các bản thu nhỏ (ImageVariant.FOR_MEDIA) đã được ghi xong.
+    @Column(name = "variants_ready", nullable = false)
+    private boolean variantsReady;
+
     public String getUrl() {
+        return urlOf(fileName);
+    }
+
+    public static String urlOf(String fileName) {
         return "/image/" + fileName;
     }
 }
@@ -0,0 +1,39 @@
+package com.snsapi.media;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Một tệp đã tải lên, định danh bằng SHA-256 của nội dung. Nhiều Media (và ảnh đại diện) cùng nội dung
+// dùng chung một blob; ref_count đếm số tham chiếu và chỉ được đổi bằng UPDATE ... ref_count + delta (MediaBlobStore).
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "media_blob", indexes = @Index(name = "idx_media_blob_ref_count", columnList = "ref_count"))
+public class MediaBlob {
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    // Đường dẫn tương đối so với upload.image: ab/cd/<hash>.<đuôi>.
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "byte_size", nullable = false)
+    private long byteSize;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
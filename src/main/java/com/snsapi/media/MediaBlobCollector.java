@@ -0,0 +1,77 @@
+package com.snsapi.media;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+// Xoá blob không còn tham chiếu (ref_count = 0) cùng tệp gốc và các bản thu nhỏ của nó.
+// Mỗi blob được xoá trong transaction riêng: DELETE khoá dòng tới khi commit, và tệp bị xoá trước commit,
+// nên một lượt tải cùng nội dung (MediaBlobStore.retain, rồi mới chuyển tệp vào chỗ) hoặc thấy dòng còn tham chiếu,
+// hoặc tạo dòng mới sau khi tệp cũ đã bị xoá.
+@Slf4j
+@Component
+public class MediaBlobCollector {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path uploadDir;
+
+    @Value("${media.blob.gc-batch-size:500}")
+    private int batchSize;
+
+    public MediaBlobCollector(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${upload.image}") String uploadDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.uploadDir = Paths.get(uploadDir);
+    }
+
+    @Scheduled(cron = "${media.blob.gc-cron:0 0 4 * * *}")
+    public void collect() {
+        int deleted = 0;
+        List<Map<String, Object>> candidates;
+        do {
+            candidates = jdbcTemplate.queryForList(
+                    "SELECT hash, file_name FROM media_blob WHERE ref_count = 0 LIMIT ?", batchSize);
+            for (Map<String, Object> candidate : candidates) {
+                String hash = (String) candidate.get("hash");
+                String fileName = (String) candidate.get("file_name");
+                Boolean removed = transactionTemplate.execute(status -> {
+                    if (jdbcTemplate.update("DELETE FROM media_blob WHERE hash = ? AND ref_count = 0", hash) == 0) {
+                        return false;
+                    }
+                    deleteFiles(fileName);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(removed)) {
+                    deleted++;
+                }
+            }
+        } while (candidates.size() == batchSize);
+
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced media blobs", deleted);
+        }
+    }
+
+    private void deleteFiles(String fileName) {
+        try {
+            Files.deleteIfExists(uploadDir.resolve(fileName));
+            for (ImageVariant variant : ImageVariant.values()) {
+                Files.deleteIfExists(uploadDir.resolve(variant.fileNameOf(fileName)));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not delete media blob " + fileName, e);
+        }
+    }
+}
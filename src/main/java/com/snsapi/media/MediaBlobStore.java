@@ -0,0 +1,188 @@
+package com.snsapi.media;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Kho tệp định danh theo nội dung: tệp tải lên được băm SHA-256 và đưa vào thư mục tạm, rồi chuyển nguyên tử
+// tới upload.image/ab/cd/<hash>.<đuôi>. Cùng nội dung thì cùng đường dẫn, nên tải lại chỉ tăng ref_count;
+// URL không bao giờ đổi nội dung, và hai tầng thư mục 256 x 256 giữ mỗi thư mục ở mức vài trăm mục.
+@Slf4j
+@Repository
+public class MediaBlobStore {
+    private static final Pattern BLOB_FILE_NAME = Pattern.compile("^[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})\\.[a-z0-9]+$");
+    private static final Pattern EXTENSION = Pattern.compile("^[a-z0-9]{1,8}$");
+    static final String TEMP_DIRECTORY = "tmp";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Sau rollback, tài nguyên của transaction cũ có thể vẫn gắn với luồng: ghi dọn dẹp trong transaction mới.
+    private final TransactionTemplate cleanupTransaction;
+    private final Path uploadDir;
+
+    public MediaBlobStore(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${upload.image}") String uploadDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cleanupTransaction = new TransactionTemplate(transactionManager);
+        this.cleanupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.uploadDir = Paths.get(uploadDir);
+    }
+
+    // Lưu tệp và giữ một tham chiếu tới blob, trong transaction của nơi gọi (stage rồi commit).
+    public MediaBlob store(MultipartFile file) throws IOException {
+        StagedBlob staged = stage(file);
+        try {
+            return commit(staged);
+        } finally {
+            discard(staged);
+        }
+    }
+
+    // Giai đoạn chỉ có I/O đĩa, gọi được ngoài transaction và song song cho nhiều tệp: băm nội dung part rồi
+    // chuyển part vào thư mục tạm. Part đã nằm trên đĩa (multipart file-size-threshold = 0) thì Tomcat chỉ đổi tên
+    // tệp của part, không chép lại. Chưa đụng tới database.
+    public StagedBlob stage(MultipartFile file) throws IOException {
+        Path tempDir = uploadDir.resolve(TEMP_DIRECTORY);
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp").toAbsolutePath();
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                input.transferTo(OutputStream.nullOutputStream());
+            }
+            file.transferTo(temp.toFile());
+            String hash = HexFormat.of().formatHex(digest.digest());
+            MediaBlob blob = MediaBlob.builder()
+                    .hash(hash)
+                    .fileName(hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." +
+                            extensionOf(file.getOriginalFilename(), file.getContentType()))
+                    .contentType(file.getContentType())
+                    .byteSize(Files.size(temp))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            return new StagedBlob(blob, temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    // Giữ một tham chiếu tới blob trong transaction của nơi gọi: nếu transaction rollback thì ref_count cũng rollback.
+    // Tham chiếu được ghi trước khi tệp được chuyển vào chỗ, để MediaBlobCollector (khoá dòng khi xoá) không thể
+    // xoá tệp vừa ghi. Nếu rollback, blob được ghi lại với ref_count = 0 để MediaBlobCollector dọn tệp đã chuyển.
+    public MediaBlob commit(StagedBlob staged) throws IOException {
+        MediaBlob blob = staged.getBlob();
+        // Cùng nội dung nhưng tải lên với đuôi khác vẫn dùng đường dẫn đã ghi nhận trước đó.
+        blob.setFileName(retain(blob));
+
+        Path target = uploadDir.resolve(blob.getFileName());
+        Files.createDirectories(target.getParent());
+        // Nội dung đích (nếu đã có) giống hệt, nên thay thế vẫn an toàn với người đang đọc.
+        Files.move(staged.getTemp(), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        cleanupTransaction.executeWithoutResult(ignored -> track(blob));
+                    }
+                }
+            });
+        }
+        return blob;
+    }
+
+    // Xoá tệp tạm nếu blob chưa được commit (hoặc commit lỗi giữa chừng).
+    public void discard(StagedBlob staged) {
+        try {
+            Files.deleteIfExists(staged.getTemp());
+        } catch (IOException e) {
+            log.warn("Could not delete staged upload {}", staged.getTemp(), e);
+        }
+    }
+
+    // Tăng ref_count, tạo dòng nếu blob chưa có (khoá chính quyết định, không SELECT ... NOT EXISTS);
+    // trả về file_name đã lưu của blob.
+    public String retain(MediaBlob blob) {
+        jdbcTemplate.update("INSERT INTO media_blob (hash, file_name, content_type, byte_size, ref_count, created_at) " +
+                        "VALUES (?, ?, ?, ?, 1, ?) ON DUPLICATE KEY UPDATE ref_count = ref_count + 1",
+                blob.getHash(), blob.getFileName(), blob.getContentType(), blob.getByteSize(),
+                Timestamp.valueOf(blob.getCreatedAt()));
+        return jdbcTemplate.queryForObject("SELECT file_name FROM media_blob WHERE hash = ?", String.class, blob.getHash());
+    }
+
+    // Tạo dòng với ref_count = 0 nếu blob chưa có.
+    private void track(MediaBlob blob) {
+        jdbcTemplate.update("INSERT IGNORE INTO media_blob (hash, file_name, content_type, byte_size, ref_count, created_at) " +
+                        "VALUES (?, ?, ?, ?, 0, ?)",
+                blob.getHash(), blob.getFileName(), blob.getContentType(), blob.getByteSize(),
+                Timestamp.valueOf(blob.getCreatedAt()));
+    }
+
+    // Bỏ một tham chiếu; blob hết tham chiếu được MediaBlobCollector xoá sau.
+    public void release(String hash) {
+        if (hash == null) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE media_blob SET ref_count = ref_count - 1 WHERE hash = ? AND ref_count > 0", hash);
+    }
+
+    // Hash của blob nếu fileName là đường dẫn trong kho (ảnh đại diện chỉ lưu đường dẫn), ngược lại null.
+    public static String hashOf(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        Matcher matcher = BLOB_FILE_NAME.matcher(fileName);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    private static String extensionOf(String originalFileName, String contentType) {
+        if (originalFileName != null) {
+            int dot = originalFileName.lastIndexOf('.');
+            String extension = dot >= 0 ? originalFileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+            if (EXTENSION.matcher(extension).matches()) {
+                return extension;
+            }
+        }
+        if (contentType != null) {
+            int slash = contentType.indexOf('/');
+            String subtype = contentType.substring(slash + 1).toLowerCase(Locale.ROOT);
+            if (EXTENSION.matcher(subtype).matches()) {
+                return subtype;
+            }
+        }
+        return "bin";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
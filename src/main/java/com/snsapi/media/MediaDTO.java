@@ -1,9 +1,12 @@
 package com.snsapi.media;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -11,6 +14,15 @@ public class MediaDTO {
     private Integer id;
     private Integer postId;
     private String url;
+    // Tên bản thu nhỏ -> URL; null (bỏ khỏi JSON) khi chưa sinh xong hoặc tệp không phải ảnh.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> variants;
+
+    public static MediaDTO of(MediaRow row) {
+        Map<String, String> variants = Boolean.TRUE.equals(row.getVariantsReady())
+                ? ImageVariant.urlsOf(ImageVariant.FOR_MEDIA, row.getFileName()) : null;
+        return new MediaDTO(row.getId(), row.getPostId(), Media.urlOf(row.getFileName()), variants);
+    }
 
     // Các phương thức getter và setter đã được tạo tự động nhờ vào @Data từ Lombok
 }
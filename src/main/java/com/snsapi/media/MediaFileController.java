@@ -0,0 +1,197 @@
+package com.snsapi.media;
+
+import com.snsapi.exception.NoResourceFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+// Phục vụ tệp trong upload.image qua /image/**, thay cho resource handler "file:" trước đây.
+// - ETag mạnh: hash nội dung với tệp của MediaBlobStore (và bản thu nhỏ của chúng), kích thước + thời điểm sửa với tệp cũ.
+// - Tệp định danh theo nội dung không bao giờ đổi nên được cache một năm với "immutable"; tệp cũ phải kiểm tra lại ETag.
+// - Một khoảng Range trả 206; nhiều khoảng thì trả cả tệp (RFC 9110 cho phép bỏ qua Range).
+// - Tệp nhỏ đọc nhiều lấy từ HotMediaCache; tệp lớn dùng sendfile của Tomcat, nếu không có thì FileChannel.transferTo.
+@Controller
+public class MediaFileController {
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+    // Dưới ngưỡng này sendfile không lợi hơn ghi thẳng; DefaultServlet của Tomcat dùng cùng ngưỡng 48 KB.
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final HotMediaCache hotMediaCache;
+    private final Path uploadDir;
+
+    public MediaFileController(HotMediaCache hotMediaCache, @Value("${upload.image}") String uploadDir) {
+        this.hotMediaCache = hotMediaCache;
+        this.uploadDir = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @RequestMapping(value = "/image/{*path}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(@PathVariable("path") String path,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException, NoResourceFoundException {
+        Path file = resolve(path);
+        BasicFileAttributes attributes = file == null ? null : attributesOf(file);
+        if (attributes == null || !attributes.isRegularFile()) {
+            throw new NoResourceFoundException("Không tìm thấy tệp: " + path);
+        }
+        String fileName = uploadDir.relativize(file).toString().replace('\\', '/');
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String contentKey = contentKeyOf(fileName);
+        String eTag = "\"" + (contentKey != null ? contentKey : Long.toHexString(size) + "-" + Long.toHexString(lastModified)) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, contentKey != null ? IMMUTABLE : REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE));
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && size > 0 && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), eTag)) {
+            List<HttpRange> ranges = parseRanges(range);
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                } catch (IllegalArgumentException e) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (RequestMethod.HEAD.name().equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (hotMediaCache.accepts(size)) {
+            try (HotMediaCache.Lease lease = hotMediaCache.acquire(file, fileName, size, lastModified)) {
+                if (lease != null) {
+                    ByteBuffer bytes = lease.getBytes();
+                    bytes.position((int) start).limit((int) (end + 1));
+                    WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                    while (bytes.hasRemaining()) {
+                        out.write(bytes);
+                    }
+                    return;
+                }
+            }
+        }
+        if (length >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat ghi tệp thẳng từ page cache ra socket sau khi handler trả về; handler không được ghi body.
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end + 1 - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    // null nếu đường dẫn thoát ra ngoài upload.image, trỏ vào thư mục tạm, hoặc vào tệp ẩn (tệp tạm của bản thu nhỏ).
+    private Path resolve(String path) {
+        Path file;
+        try {
+            file = uploadDir.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        if (!file.startsWith(uploadDir) || file.equals(uploadDir)) {
+            return null;
+        }
+        Path relative = uploadDir.relativize(file);
+        if (relative.getName(0).toString().equals(MediaBlobStore.TEMP_DIRECTORY)) {
+            return null;
+        }
+        for (Path segment : relative) {
+            if (segment.toString().startsWith(".")) {
+                return null;
+            }
+        }
+        return file;
+    }
+
+    private BasicFileAttributes attributesOf(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Hash (kèm loại bản thu nhỏ) nếu tệp thuộc MediaBlobStore, ngược lại null.
+    private static String contentKeyOf(String fileName) {
+        String hash = MediaBlobStore.hashOf(fileName);
+        if (hash != null) {
+            return hash;
+        }
+        for (ImageVariant variant : ImageVariant.values()) {
+            String original = variant.originalOf(fileName);
+            if (original != null) {
+                String originalHash = MediaBlobStore.hashOf(original);
+                return originalHash != null ? originalHash + "-" + variant.getKey() : null;
+            }
+        }
+        return null;
+    }
+
+    // If-Range chỉ khớp với ETag mạnh y hệt; dạng ngày thì coi như không khớp và trả cả tệp.
+    private static boolean ifRangeMatches(String ifRange, String eTag) {
+        return ifRange == null || ifRange.trim().equals(eTag);
+    }
+
+    // Range sai cú pháp bị bỏ qua.
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
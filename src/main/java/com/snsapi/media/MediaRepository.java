@@ -1,6 +1,22 @@
 package com.snsapi.media;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface MediaRepository extends JpaRepository<Media, Long> {
+
+    @Query("SELECT m.id AS id, m.post.id AS postId, m.fileName AS fileName, m.variantsReady AS variantsReady " +
+            "FROM Media m WHERE m.post.id IN :postIds ORDER BY m.id")
+    List<MediaRow> findRowsByPostIds(@Param("postIds") Collection<Integer> postIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Media m SET m.variantsReady = true WHERE m.id = :id")
+    int markVariantsReady(@Param("id") Integer id);
 }
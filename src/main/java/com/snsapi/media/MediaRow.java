@@ -0,0 +1,8 @@
+package com.snsapi.media;
+
+public interface MediaRow {
+    Integer getId();
+    Integer getPostId();
+    String getFileName();
+    Boolean getVariantsReady();
+}
@@ -0,0 +1,15 @@
+package com.snsapi.media;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Path;
+
+// Tệp đã ghi và băm xong trong thư mục tạm của MediaBlobStore nhưng chưa có tham chiếu nào: MediaBlobStore.commit
+// đưa nó vào kho, MediaBlobStore.discard xoá tệp tạm nếu nó chưa được đưa vào.
+@Getter
+@RequiredArgsConstructor
+public class StagedBlob {
+    private final MediaBlob blob;
+    private final Path temp;
+}
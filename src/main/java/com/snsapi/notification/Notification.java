@@ -1,6 +1,7 @@
 package com.snsapi.notification;
 
 import com.snsapi.comment.Comment;
+import com.snsapi.config.IdGeneratorAligner;
 import com.snsapi.post.Post;
 import com.snsapi.user.User;
 import jakarta.persistence.*;
@@ -21,7 +22,9 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "notification_id")
+    @TableGenerator(name = "notification_id", table = IdGeneratorAligner.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "notification", allocationSize = IdGeneratorAligner.ALLOCATION_SIZE)
     private Integer id;
 
     @ManyToOne
@@ -2,6 +2,9 @@ package com.snsapi.notification;
 
 import com.snsapi.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,14 @@ public interface NotificationRepository extends JpaRepository<Notification, Inte
     List<Notification> findByRecipientOrderByCreatedAtDesc(User recipient);
 
     List<Notification> findByRecipientAndIsReadFalseOrderByCreatedAtDesc(User recipient);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipient = :recipient AND n.isRead = false")
+    int markAllAsRead(@Param("recipient") User recipient);
+
+    // Thông báo của mọi bình luận trong cây con (post_id, path LIKE pattern), xoá trước khi xoá chính các bình luận.
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.comment.id IN " +
+            "(SELECT c.id FROM Comment c WHERE c.post.id = :postId AND c.path LIKE :pattern)")
+    int deleteByCommentSubtree(@Param("postId") Integer postId, @Param("pattern") String pattern);
 }
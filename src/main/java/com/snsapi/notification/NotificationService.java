@@ -5,6 +5,7 @@ import com.snsapi.post.Post;
 import com.snsapi.user.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -74,9 +75,9 @@ public class NotificationService {
         return notificationRepository.findByRecipientOrderByCreatedAtDesc(recipient);
     }
 
+    // Một câu UPDATE cho mọi thông báo chưa đọc, thay vì nạp từng entity rồi lưu lại.
+    @Transactional
     public void markAllAsRead(User recipient) {
-        List<Notification> notifications = notificationRepository.findByRecipientAndIsReadFalseOrderByCreatedAtDesc(recipient);
-        notifications.forEach(Notification::markAsRead);
-        notificationRepository.saveAll(notifications);
+        notificationRepository.markAllAsRead(recipient);
     }
 }
@@ -1,6 +1,7 @@
 package com.snsapi.post;
 
 import com.snsapi.comment.Comment;
+import com.snsapi.config.IdGeneratorAligner;
 import com.snsapi.media.Media;
 import com.snsapi.user.User;
 import jakarta.persistence.*;
@@ -10,6 +11,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -23,13 +25,22 @@ import java.util.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@DynamicUpdate
+@Table(indexes = {
+        @Index(name = "idx_post_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_post_user_created_at", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_post_visibility_created_at", columnList = "visibility, created_at, id")
+})
 public class Post {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_id")
+    @TableGenerator(name = "post_id", table = IdGeneratorAligner.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "post", allocationSize = IdGeneratorAligner.ALLOCATION_SIZE)
     private Integer id;
 
-    @ManyToOne
+    // Feed chỉ cần user_id (getId() trên proxy không nạp User); tác giả được nạp theo lô qua UserSummaryCache.
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -49,6 +60,17 @@ public class Post {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Chỉ được thay đổi bằng UPDATE ... SET x = x + delta (PostRepository), không ghi từ entity.
+    @Column(name = "like_count", nullable = false)
+    private int likeCount;
+
+    // Tăng mỗi lần tập người thích đổi (LikeStore); dùng cho ETag của feed, cùng quy tắc ghi như like_count.
+    @Column(name = "like_version", nullable = false)
+    private long likeVersion;
+
+    @Column(name = "comment_count", nullable = false)
+    private int commentCount;
+
     @Size(max = 4, message = "Tối đa 4 ảnh.")
     @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, mappedBy = "post")
     private List<Media> media = new ArrayList<>();
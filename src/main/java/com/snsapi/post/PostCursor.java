@@ -0,0 +1,33 @@
+package com.snsapi.post;
+
+import com.snsapi.utils.OpaqueCursor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+// Vị trí (created_at, id) của bài viết cuối cùng trong trang, mã hoá bằng OpaqueCursor.
+@Getter
+@AllArgsConstructor
+public class PostCursor {
+    private final LocalDateTime createdAt;
+    private final Integer id;
+
+    public static PostCursor of(Post post) {
+        return new PostCursor(post.getCreatedAt(), post.getId());
+    }
+
+    public String encode() {
+        return OpaqueCursor.encode(createdAt, id);
+    }
+
+    public static PostCursor decode(String cursor) {
+        String[] keys = OpaqueCursor.decode(cursor, 2);
+        try {
+            return new PostCursor(LocalDateTime.parse(keys[0]), Integer.valueOf(keys[1]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw OpaqueCursor.invalid(e);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.snsapi.post;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.snsapi.comment.CommentDTO;
 import com.snsapi.like.LikeDTO;
 import com.snsapi.media.MediaDTO;
+import com.snsapi.user.UserDTO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,14 +14,17 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PostDTO {
     private Integer id;
     private Integer userId;
     private String content;
+    private UserDTO createdBy;
     private Post.VisibilityEnum visibility;
     private List<MediaDTO> media;
     private LikeDTO likes;
     private List<CommentDTO> comments;
+    private Integer commentCount;
     private String createdAt;
     private String updatedAt;
 }
@@ -0,0 +1,149 @@
+package com.snsapi.post;
+
+import com.snsapi.comment.CommentAssembler;
+import com.snsapi.comment.CommentDTO;
+import com.snsapi.comment.CommentRow;
+import com.snsapi.comment.CommentThreadStore;
+import com.snsapi.friend.AddFriendService;
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.like.LikeDTO;
+import com.snsapi.like.LikeService;
+import com.snsapi.like.LikeTarget;
+import com.snsapi.media.MediaDTO;
+import com.snsapi.media.MediaRepository;
+import com.snsapi.media.MediaRow;
+import com.snsapi.user.UserDTO;
+import com.snsapi.user.UserSummaryCache;
+import com.snsapi.utils.DateConverter;
+import com.snsapi.utils.FieldSelection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Dựng PostDTO cho cả một trang bài viết với số câu truy vấn cố định (IN theo danh sách id),
+// thay vì lazy-load media, bình luận, lượt thích và tác giả cho từng bài.
+// Lượt thích chỉ gồm số đếm, likedByMe và vài người thích đầu tiên (bạn bè trước); danh sách đầy đủ có endpoint riêng.
+// Bình luận cũng chỉ là vài bình luận gốc đầu tiên kèm replyCount; cả luồng lấy qua GET /api/v1/posts/{id}/comments.
+@Component
+@RequiredArgsConstructor
+public class PostFeedAssembler {
+    // Tên trường dùng được trong ?fields= / ?include=; "likers" là danh sách vài người thích đầu tiên trong likes.
+    public static final Set<String> FIELDS = Set.of("id", "userId", "content", "createdBy", "visibility", "media",
+            "likes", "likers", "comments", "commentCount", "createdAt", "updatedAt");
+
+    private final MediaRepository mediaRepository;
+    private final CommentThreadStore commentThreadStore;
+    private final CommentAssembler commentAssembler;
+    private final UserSummaryCache userSummaryCache;
+    private final LikeService likeService;
+    private final AddFriendService addFriendService;
+
+    @Value("${comment.feed-preview:2}")
+    private int commentPreview;
+
+    @Transactional(readOnly = true)
+    public List<PostDTO> assemble(List<Post> posts) {
+        return assemble(posts, null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PostDTO> assemble(List<Post> posts, Integer viewerId) {
+        return assemble(posts, viewerId, FieldSelection.all());
+    }
+
+    public static FieldSelection parseFields(String fields, String include) {
+        return FieldSelection.parse(fields, include, FIELDS);
+    }
+
+    // Chỉ chạy truy vấn cho những phần được chọn; trường không được chọn để null và bị bỏ khỏi JSON.
+    @Transactional(readOnly = true)
+    public List<PostDTO> assemble(List<Post> posts, Integer viewerId, FieldSelection fields) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> postIds = posts.stream().map(Post::getId).collect(Collectors.toList());
+        boolean withLikes = fields.has("likes") || fields.has("likers");
+        boolean withLikers = fields.has("likers");
+        boolean withComments = fields.has("comments");
+
+        Map<Integer, List<MediaDTO>> mediaByPost = !fields.has("media") ? Collections.emptyMap() :
+                mediaRepository.findRowsByPostIds(postIds).stream()
+                        .collect(Collectors.groupingBy(MediaRow::getPostId,
+                                Collectors.mapping(MediaDTO::of, Collectors.toList())));
+        FriendIdSet friends = viewerId != null && withLikers ? addFriendService.findFriendIdSet(viewerId) : FriendIdSet.empty();
+        Map<Integer, List<UserDTO>> likersByPost = withLikers
+                ? likeService.previewLikers(LikeTarget.POST, postIds, friends) : Collections.emptyMap();
+        Set<Integer> likedPosts = viewerId != null && withLikes ? likeService.likedByMe(LikeTarget.POST, postIds, viewerId) : null;
+
+        Set<Integer> authorIds = new HashSet<>();
+        if (fields.has("createdBy")) {
+            posts.stream()
+                    .filter(post -> post.getUser() != null)
+                    .forEach(post -> authorIds.add(post.getUser().getId()));
+        }
+        Map<Integer, UserDTO> authors = userSummaryCache.getAll(authorIds);
+
+        Map<Integer, List<CommentDTO>> commentsByPost = withComments
+                ? previewComments(postIds, viewerId, friends, withLikers) : Collections.emptyMap();
+
+        return posts.stream().map(post -> {
+            Integer authorId = post.getUser() != null ? post.getUser().getId() : null;
+            PostDTO postDTO = new PostDTO();
+            if (fields.has("id")) {
+                postDTO.setId(post.getId());
+            }
+            if (fields.has("userId")) {
+                postDTO.setUserId(authorId);
+            }
+            if (fields.has("createdBy")) {
+                postDTO.setCreatedBy(authorId != null ? authors.get(authorId) : null);
+            }
+            if (fields.has("content")) {
+                postDTO.setContent(post.getContent());
+            }
+            if (fields.has("visibility")) {
+                postDTO.setVisibility(post.getVisibility());
+            }
+            if (fields.has("createdAt")) {
+                postDTO.setCreatedAt(DateConverter.localDateTimeToDateWithSlash(post.getCreatedAt()));
+            }
+            if (fields.has("updatedAt")) {
+                postDTO.setUpdatedAt(DateConverter.localDateTimeToDateWithSlash(post.getUpdatedAt()));
+            }
+            if (fields.has("media")) {
+                postDTO.setMedia(mediaByPost.getOrDefault(post.getId(), new ArrayList<>()));
+            }
+            if (withComments) {
+                postDTO.setComments(commentsByPost.getOrDefault(post.getId(), new ArrayList<>()));
+            }
+            if (fields.has("commentCount")) {
+                postDTO.setCommentCount(post.getCommentCount());
+            }
+            if (withLikes) {
+                List<UserDTO> likeByUsers = withLikers ? likersByPost.getOrDefault(post.getId(), new ArrayList<>()) : null;
+                postDTO.setLikes(new LikeDTO(likeService.displayCount(LikeTarget.POST, post.getId(), post.getLikeCount()),
+                        likedPosts != null ? likedPosts.contains(post.getId()) : null, likeByUsers));
+            }
+            return postDTO;
+        }).collect(Collectors.toList());
+    }
+
+    // Vài bình luận gốc đầu tiên của mỗi bài, dựng chung một lượt để số truy vấn không phụ thuộc số bài.
+    private Map<Integer, List<CommentDTO>> previewComments(List<Integer> postIds, Integer viewerId,
+                                                           FriendIdSet friends, boolean withLikers) {
+        List<CommentRow> rows = commentThreadStore.findFirstTopLevel(postIds, commentPreview).values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        return commentAssembler.assemble(rows, viewerId, friends, 0, withLikers).stream()
+                .collect(Collectors.groupingBy(CommentDTO::getPostId));
+    }
+}
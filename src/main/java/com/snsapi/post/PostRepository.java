@@ -1,10 +1,16 @@
 package com.snsapi.post;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Integer> {
@@ -17,6 +23,85 @@ public interface PostRepository extends JpaRepository<Post, Integer> {
             "WHERE p.id = :postId AND u.id = :userId")
     boolean existsByPostIdAndUserId(Integer postId, Integer userId);
 
-    @Query("SELECT p FROM Post p WHERE p.content LIKE %:content%")
-    List<Post> findByContent(String content);
+    @Query("SELECT p FROM Post p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFeedFirstPage(Pageable pageable);
+
+    @Query("SELECT p FROM Post p " +
+            "WHERE p.createdAt <= :createdAt " +
+            "AND (p.createdAt < :createdAt OR p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFeedPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Integer id,
+                                 Pageable pageable);
+
+    @Query("SELECT p FROM Post p " +
+            "WHERE (p.visibility = 'PUBLIC' OR p.user.id = :viewerId " +
+            "OR (p.visibility = 'FRIENDS_ONLY' AND p.user.id IN :friendIds)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findHomeFirstPage(@Param("viewerId") Integer viewerId,
+                                 @Param("friendIds") Collection<Integer> friendIds,
+                                 Pageable pageable);
+
+    @Query("SELECT p FROM Post p " +
+            "WHERE (p.visibility = 'PUBLIC' OR p.user.id = :viewerId " +
+            "OR (p.visibility = 'FRIENDS_ONLY' AND p.user.id IN :friendIds)) " +
+            "AND p.createdAt <= :createdAt " +
+            "AND (p.createdAt < :createdAt OR p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findHomePageAfter(@Param("viewerId") Integer viewerId,
+                                 @Param("friendIds") Collection<Integer> friendIds,
+                                 @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Integer id,
+                                 Pageable pageable);
+
+    @Query("SELECT p FROM Post p " +
+            "WHERE (p.user.id = :viewerId OR (p.user.id IN :friendIds AND p.visibility <> 'PRIVATE')) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFriendFeedFirstPage(@Param("viewerId") Integer viewerId,
+                                       @Param("friendIds") Collection<Integer> friendIds,
+                                       Pageable pageable);
+
+    @Query("SELECT p FROM Post p " +
+            "WHERE (p.user.id = :viewerId OR (p.user.id IN :friendIds AND p.visibility <> 'PRIVATE')) " +
+            "AND p.createdAt <= :createdAt " +
+            "AND (p.createdAt < :createdAt OR p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFriendFeedPageAfter(@Param("viewerId") Integer viewerId,
+                                       @Param("friendIds") Collection<Integer> friendIds,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Integer id,
+                                       Pageable pageable);
+
+    @Query("SELECT p.id FROM Post p " +
+            "WHERE p.user.id IN :authorIds AND p.visibility <> 'PRIVATE' " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Integer> findFeedIdsByAuthorsFirstPage(@Param("authorIds") Collection<Integer> authorIds,
+                                                Pageable pageable);
+
+    @Query("SELECT p.id FROM Post p " +
+            "WHERE p.user.id IN :authorIds AND p.visibility <> 'PRIVATE' " +
+            "AND p.createdAt <= :createdAt " +
+            "AND (p.createdAt < :createdAt OR p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Integer> findFeedIdsByAuthorsPageAfter(@Param("authorIds") Collection<Integer> authorIds,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Integer id,
+                                                Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Post p SET p.likeCount = p.likeCount + :delta, p.likeVersion = p.likeVersion + 1 WHERE p.id = :postId")
+    int addLikeCount(@Param("postId") Integer postId, @Param("delta") int delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Post p SET p.commentCount = p.commentCount + :delta WHERE p.id = :postId")
+    int addCommentCount(@Param("postId") Integer postId, @Param("delta") int delta);
+
+    @Query("SELECT p.visibility FROM Post p WHERE p.id = :postId")
+    Optional<Post.VisibilityEnum> findVisibilityById(@Param("postId") Integer postId);
+
+    @Query("SELECT p.likeCount FROM Post p WHERE p.id = :postId")
+    Optional<Integer> findLikeCountById(@Param("postId") Integer postId);
+
+    @Query("SELECT p.commentCount FROM Post p WHERE p.id = :postId")
+    Optional<Integer> findCommentCountById(@Param("postId") Integer postId);
 }
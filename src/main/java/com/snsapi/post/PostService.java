@@ -1,52 +1,202 @@
 
 package com.snsapi.post;
 
-import com.snsapi.comment.Comment;
-import com.snsapi.comment.CommentDTO;
 import com.snsapi.comment.CommentRepository;
-import com.snsapi.like.LikeDTO;
+import com.snsapi.friend.AddFriendService;
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.timeline.TimelineService;
+import com.snsapi.trending.TrendingService;
+import com.snsapi.like.LikeService;
+import com.snsapi.like.LikeTarget;
+import com.snsapi.like.LikeToggleResult;
+import com.snsapi.like.LikeWriteBehindBuffer;
+import com.snsapi.media.ImageVariantPipeline;
 import com.snsapi.media.Media;
+import com.snsapi.media.MediaBlob;
+import com.snsapi.media.MediaBlobStore;
 import com.snsapi.media.MediaRepository;
-import com.snsapi.user.User;
-import com.snsapi.user.UserDTO;
-import com.snsapi.user.UserRepository;
+import com.snsapi.media.StagedBlob;
+import com.snsapi.search.IndexedPost;
+import com.snsapi.search.PostSearchIndex;
 import com.snsapi.user.UserService;
+import com.snsapi.utils.AfterCommit;
+import com.snsapi.utils.CursorPage;
 import com.snsapi.utils.DateConverter;
-import jakarta.persistence.EntityNotFoundException;
+import com.snsapi.utils.JsonArrayStreamer;
+import com.snsapi.utils.VersionTag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class PostService {
+    public static final int MAX_PAGE_SIZE = 50;
+
     private final PostRepository postRepository;
-    private final UserRepository userRepository;
     private final MediaRepository mediaRepository;
     private final CommentRepository commentRepository;
     private final UserService userService;
+    private final AddFriendService addFriendService;
+    private final TimelineService timelineService;
+    private final LikeService likeService;
+    private final PostSearchIndex postSearchIndex;
+    private final TrendingService trendingService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ImageVariantPipeline imageVariantPipeline;
+    private final MediaBlobStore mediaBlobStore;
+
+    @Transactional(readOnly = true)
+    public CursorPage<Post> getFeedPage(String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Post> posts;
+        if (cursor == null || cursor.isBlank()) {
+            posts = postRepository.findFeedFirstPage(limit);
+        } else {
+            PostCursor after = PostCursor.decode(cursor);
+            posts = postRepository.findFeedPageAfter(after.getCreatedAt(), after.getId(), limit);
+        }
+        return toCursorPage(posts, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Post> getHomePage(Integer viewerId, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Integer> friendIds = addFriendService.findFriendIdSet(viewerId).toParameterList();
+
+        List<Post> posts;
+        if (cursor == null || cursor.isBlank()) {
+            posts = postRepository.findHomeFirstPage(viewerId, friendIds, limit);
+        } else {
+            PostCursor after = PostCursor.decode(cursor);
+            posts = postRepository.findHomePageAfter(viewerId, friendIds, after.getCreatedAt(), after.getId(), limit);
+        }
+        return toCursorPage(posts, pageSize);
+    }
 
-    @Value("${upload.image}")
-    private String fileUpload;
+    // ETag cho một trang feed, tính từ các cột phiên bản của đúng những bài trong trang (cùng điều kiện keyset,
+    // lấy dư một bài như getFeedPage) cùng bình luận và tác giả của chúng - không dựng PostDTO nào.
+    // viewerId và tham số fields/include cũng nằm trong ETag vì chúng làm thay đổi nội dung response.
+    // like_version và thay đổi đang chờ ghi trễ (của cả bài và bình luận) phủ các thay đổi tập người thích mà không làm
+    // đổi like_count: người xem trước trong likes và likedByMe.
+    @Transactional(readOnly = true)
+    public String getFeedPageETag(String cursor, int size, Integer viewerId, String fields, String include) {
+        int pageSize = clampPageSize(size);
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", pageSize + 1);
+        String where = "";
+        if (cursor != null && !cursor.isBlank()) {
+            PostCursor after = PostCursor.decode(cursor);
+            where = "WHERE p.created_at <= :createdAt AND (p.created_at < :createdAt OR p.id < :id) ";
+            params.addValue("createdAt", Timestamp.valueOf(after.getCreatedAt())).addValue("id", after.getId());
+        }
 
-    public List<Post> getAllPosts() {
-        return postRepository.findAll();
+        VersionTag tag = new VersionTag().add(viewerId).add(fields).add(include).add(pageSize);
+        Map<Integer, LikeWriteBehindBuffer.PendingLikes> pendingPostLikes = likeService.pendingLikes(LikeTarget.POST);
+        Map<Integer, LikeWriteBehindBuffer.PendingLikes> pendingCommentLikes = likeService.pendingLikes(LikeTarget.COMMENT);
+        List<Integer> postIds = new ArrayList<>();
+        namedJdbcTemplate.query("SELECT p.id, p.updated_at, p.like_count, p.like_version, p.comment_count, " +
+                "u.updated_at AS author_updated_at FROM post p LEFT JOIN users u ON u.id = p.user_id " + where +
+                "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit", params, rs -> {
+            int postId = rs.getInt("id");
+            postIds.add(postId);
+            tag.add(postId)
+                    .add(rs.getTimestamp("updated_at"))
+                    .add(rs.getInt("like_count"))
+                    .add(rs.getLong("like_version"))
+                    .add(rs.getInt("comment_count"))
+                    .add(rs.getTimestamp("author_updated_at"));
+            addPendingLikes(tag, pendingPostLikes.get(postId));
+        });
+        if (!postIds.isEmpty()) {
+            namedJdbcTemplate.query("SELECT COUNT(*) AS total, MAX(c.updated_at) AS last_updated, " +
+                    "COALESCE(SUM(c.like_count), 0) AS likes, COALESCE(SUM(c.like_version), 0) AS like_versions, " +
+                    "MAX(u.updated_at) AS author_updated_at " +
+                    "FROM comment c LEFT JOIN users u ON u.id = c.user_id WHERE c.post_id IN (:postIds)",
+                    new MapSqlParameterSource("postIds", postIds), rs -> {
+                tag.add(rs.getLong("total"))
+                        .add(rs.getTimestamp("last_updated"))
+                        .add(rs.getLong("likes"))
+                        .add(rs.getLong("like_versions"))
+                        .add(rs.getTimestamp("author_updated_at"));
+            });
+            // Bộ đệm chỉ giữ tối đa like.write-behind.max-pending mục: lọc bằng khoá chính những bình luận thuộc trang.
+            if (!pendingCommentLikes.isEmpty()) {
+                namedJdbcTemplate.query("SELECT c.id FROM comment c WHERE c.id IN (:commentIds) " +
+                        "AND c.post_id IN (:postIds) ORDER BY c.id", new MapSqlParameterSource()
+                        .addValue("commentIds", pendingCommentLikes.keySet())
+                        .addValue("postIds", postIds), rs -> {
+                    int commentId = rs.getInt("id");
+                    tag.add(commentId);
+                    addPendingLikes(tag, pendingCommentLikes.get(commentId));
+                });
+            }
+            // Bản thu nhỏ được sinh sau khi bài đã lưu, nên ETag đổi khi ảnh chuyển sang variants_ready.
+            namedJdbcTemplate.query("SELECT COUNT(*) AS total, " +
+                    "COALESCE(SUM(CASE WHEN m.variants_ready THEN 1 ELSE 0 END), 0) AS ready " +
+                    "FROM media m WHERE m.post_id IN (:postIds)", new MapSqlParameterSource("postIds", postIds), rs -> {
+                tag.add(rs.getLong("total")).add(rs.getLong("ready"));
+            });
+        }
+        return tag.toETag();
     }
 
-    public Post save(Integer userId, String content, Post.VisibilityEnum visibility, MultipartFile[] files) {
+    private static void addPendingLikes(VersionTag tag, LikeWriteBehindBuffer.PendingLikes pending) {
+        if (pending != null) {
+            tag.add(pending.getDelta()).add(pending.getLikerSum());
+        } else {
+            tag.add(0L).add(0L);
+        }
+    }
+
+    // Xuất toàn bộ bài viết công khai dưới dạng mảng JSON, ghi thẳng từ con trỏ JDBC ra response.
+    public StreamingResponseBody exportPublicPosts() {
+        return jsonArrayStreamer.stream("SELECT p.id, p.user_id, p.content, p.visibility, p.like_count, p.comment_count, " +
+                "p.created_at, p.updated_at FROM post p WHERE p.visibility = 'PUBLIC' ORDER BY p.id", (generator, rs) -> {
+            generator.writeNumberField("id", rs.getInt("id"));
+            generator.writeNumberField("userId", rs.getInt("user_id"));
+            generator.writeStringField("content", rs.getString("content"));
+            generator.writeStringField("visibility", rs.getString("visibility"));
+            generator.writeNumberField("likeCount", rs.getInt("like_count"));
+            generator.writeNumberField("commentCount", rs.getInt("comment_count"));
+            generator.writeStringField("createdAt", DateConverter.timestampToDateWithSlash(rs.getTimestamp("created_at")));
+            generator.writeStringField("updatedAt", DateConverter.timestampToDateWithSlash(rs.getTimestamp("updated_at")));
+        });
+    }
+
+    public static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private CursorPage<Post> toCursorPage(List<Post> posts, int pageSize) {
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = new ArrayList<>(posts.subList(0, pageSize));
+            nextCursor = PostCursor.of(posts.get(pageSize - 1)).encode();
+        }
+        return new CursorPage<>(posts, nextCursor);
+    }
+
+    // Tệp đã được PostUploadService đưa vào thư mục tạm từ trước: transaction chỉ ghi bài, media và tham chiếu blob.
+    public Post save(Integer userId, String content, Post.VisibilityEnum visibility, List<StagedBlob> files) {
         Post post = new Post();
         post.setUser(userService.findById(userId));
         post.setContent(content);
@@ -55,20 +205,26 @@ public class PostService {
         post = postRepository.save(post);
 
         if (files != null) {
-            for (MultipartFile file : files) {
-                if (!file.isEmpty()) {
-                    Media media = new Media();
-                    media.setPost(post);
-                    media.setMediaType(saveFile(file));
-                    media.setFileName(file.getOriginalFilename());
-                    mediaRepository.save(media);
-                }
+            List<Media> mediaList = new ArrayList<>();
+            for (StagedBlob file : files) {
+                Media media = new Media();
+                media.setPost(post);
+                attachFile(media, file);
+                mediaList.add(media);
             }
+            // Id lấy từ bảng id_generator nên các INSERT media được gửi thành một JDBC batch khi flush.
+            mediaRepository.saveAll(mediaList);
+            // Bản thu nhỏ được sinh trên pool riêng sau commit, không trên luồng request.
+            AfterCommit.run(() -> mediaList.forEach(media ->
+                    imageVariantPipeline.submitMedia(media.getId(), media.getFileName())));
         }
+        timelineService.onPostCreated(post);
+        IndexedPost indexed = IndexedPost.of(post);
+        AfterCommit.run(() -> postSearchIndex.indexAndRefresh(indexed));
         return post;
     }
 
-    public Post updatePost(Integer postId, String content, Post.VisibilityEnum visibility, MultipartFile file) {
+    public Post updatePost(Integer postId, String content, Post.VisibilityEnum visibility, StagedBlob file) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new IllegalArgumentException("Bài viết không tồn tại."));
 
@@ -78,110 +234,88 @@ public class PostService {
             post.setVisibility(visibility);
         }
 
-        if (file != null && !file.isEmpty()) {
+        if (file != null) {
             Media media = new Media();
-            media.setFileName(saveFile(file));
-            media.setMediaType(file.getContentType());
+            attachFile(media, file);
             media.setPost(post);
             mediaRepository.save(media);
             post.addMedia(media);
+            AfterCommit.run(() -> imageVariantPipeline.submitMedia(media.getId(), media.getFileName()));
         }
 
-        return postRepository.save(post);
+        Post savedPost = postRepository.save(post);
+        IndexedPost indexed = IndexedPost.of(savedPost);
+        AfterCommit.run(() -> postSearchIndex.indexAndRefresh(indexed));
+        if (savedPost.getVisibility() != Post.VisibilityEnum.PUBLIC) {
+            AfterCommit.run(() -> trendingService.remove(postId));
+        }
+        return savedPost;
     }
 
     public void deletePost(Integer postId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new IllegalArgumentException("Bài viết không tồn tại."));
+        post.getMedia().forEach(media -> mediaBlobStore.release(media.getBlobHash()));
         postRepository.delete(post);
+        AfterCommit.run(() -> {
+            postSearchIndex.deleteAndRefresh(postId);
+            trendingService.remove(postId);
+        });
     }
 
-    private String saveFile(MultipartFile file) {
-        if (file.isEmpty()) {
-            return null;
-        }
+    // Đưa tệp vào kho định danh theo nội dung (trùng nội dung thì dùng chung một tệp) và trỏ media tới blob đó.
+    private void attachFile(Media media, StagedBlob file) {
         try {
-            Path path = Paths.get(fileUpload + File.separator + file.getOriginalFilename());
-            Files.copy(file.getInputStream(), path);
-            return file.getOriginalFilename();
+            MediaBlob blob = mediaBlobStore.commit(file);
+            media.setFileName(blob.getFileName());
+            media.setMediaType(blob.getContentType());
+            media.setBlobHash(blob.getHash());
         } catch (IOException e) {
-            e.printStackTrace();
-            return null;
+            throw new RuntimeException("Error saving file", e);
         }
     }
 
-    public List<Post> searchPostByContent(String content) {
-        return postRepository.findByContent(content);
-    }
-
-    public void toggleLikePost(Integer postId, Integer userId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new EntityNotFoundException("Bài viết không tồn tại."));
+    // Tìm qua chỉ mục toàn văn rồi nạp bài theo lô, giữ nguyên thứ tự xếp hạng của chỉ mục.
+    @Transactional(readOnly = true)
+    public List<Post> searchPostByContent(String content, Integer viewerId, int page, int size) {
+        int pageSize = clampPageSize(size);
+        FriendIdSet friends = viewerId != null ? addFriendService.findFriendIdSet(viewerId) : FriendIdSet.empty();
+        List<Integer> ids = postSearchIndex.search(content, viewerId, friends, Math.max(0, page) * pageSize, pageSize);
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Người dùng không tồn tại."));
-
-        if (post.getLikeUsers().contains(user)) {
-            post.getLikeUsers().remove(user);
-        } else {
-            post.getLikeUsers().add(user);
-        }
-
-        postRepository.save(post);
+        Map<Integer, Post> byId = postRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
-    public int countLikes(Integer postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new IllegalArgumentException("Bài viết không tồn tại!"));
-        return post.getLikeUsers().size();
+    public LikeToggleResult toggleLikePost(Integer postId, Integer userId) {
+        LikeToggleResult result = likeService.toggle(LikeTarget.POST, postId, userId);
+        Post.VisibilityEnum visibility = postRepository.findVisibilityById(postId).orElse(null);
+        AfterCommit.run(() -> trendingService.onLikeToggled(postId, userId, result.isLiked(), visibility));
+        return result;
     }
 
-    public List<User> getUsersWhoLikedPost(Integer postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new EntityNotFoundException("Bài viết không tồn tại."));
-        return new ArrayList<>(post.getLikeUsers());
+    // Bài viết đang nổi bật, chỉ gồm bài công khai, theo thứ tự điểm của TrendingService.
+    @Transactional(readOnly = true)
+    public List<Post> getTrending(int size) {
+        int pageSize = clampPageSize(size);
+        // Lấy dư để bù những bài đã bị xoá hoặc chuyển sang không công khai.
+        List<Integer> ids = trendingService.topPostIds(pageSize * 2);
+        Map<Integer, Post> byId = postRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .filter(post -> post.getVisibility() == Post.VisibilityEnum.PUBLIC)
+                .limit(pageSize)
+                .collect(Collectors.toList());
     }
 
-    public CommentDTO convertToCommentDTO(Comment comment) {
-        UserDTO userDTO = null;
-
-        Optional<User> userOptional = userRepository.findById(comment.getUser().getId());
-        if (userOptional.isPresent()){
-            User user = userOptional.get();
-            userDTO = new UserDTO(user.getId(), user.getName(), user.getProfilePicture());
-        }
-        CommentDTO commentDTO = new CommentDTO();
-        commentDTO.setId(comment.getId());
-        commentDTO.setPostId(comment.getPost() != null ? comment.getPost().getId() : null);
-        commentDTO.setUserId(comment.getUser() != null ? comment.getUser().getId() : null);
-        commentDTO.setContent(comment.getContent());
-        commentDTO.setCreatedAt(DateConverter.localDateTimeToDateWithSlash(comment.getCreatedAt()));
-
-        commentDTO.setCreatedBy(userDTO);
-
-        List<CommentDTO> repliesDTO = comment.getReplies() != null ?
-                comment.getReplies().stream()
-                        .map(this::convertToCommentDTO)
-                        .collect(Collectors.toList()) : new ArrayList<>();
-        commentDTO.setReplies(repliesDTO);
-
-        LikeDTO likeDTO = new LikeDTO();
-        int likeCount = comment.getLikeUsers() != null ? comment.getLikeUsers().size() : 0;
-        likeDTO.setLikeCount(likeCount);
-
-        List<UserDTO> likeByUsers = comment.getLikeUsers() != null ?
-                comment.getLikeUsers().stream()
-                        .map(user -> {
-                            UserDTO userDTO1 = new UserDTO();
-                            userDTO1.setId(user.getId());
-                            userDTO1.setName(user.getName());
-                            userDTO1.setProfilePicture(user.getProfilePicture());
-                            return userDTO1;
-                        })
-                        .collect(Collectors.toList()) : new ArrayList<>();
-
-        likeDTO.setLikeByUsers(likeByUsers);
-        commentDTO.setLikes(likeDTO);
-        return commentDTO;
+    public int countLikes(Integer postId) {
+        int stored = postRepository.findLikeCountById(postId)
+                .orElseThrow(() -> new IllegalArgumentException("Bài viết không tồn tại!"));
+        return likeService.displayCount(LikeTarget.POST, postId, stored);
     }
 }
@@ -0,0 +1,87 @@
+package com.snsapi.post;
+
+import com.snsapi.config.ExecutorConfig;
+import com.snsapi.media.MediaBlobStore;
+import com.snsapi.media.StagedBlob;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// Tạo/sửa bài viết có tệp đính kèm mà không giữ kết nối database trong lúc làm I/O đĩa: các tệp được đưa vào
+// thư mục tạm của MediaBlobStore song song (ExecutorConfig.POST_UPLOAD) trước khi mở transaction, rồi PostService chỉ
+// ghi bài viết, các dòng media và tham chiếu blob trong một transaction ngắn. Tệp tạm luôn được xoá khi xong.
+// Không có @Transactional: transaction bắt đầu trong PostService.
+@Service
+public class PostUploadService {
+    private final PostService postService;
+    private final MediaBlobStore mediaBlobStore;
+    private final Executor executor;
+
+    public PostUploadService(PostService postService,
+                             MediaBlobStore mediaBlobStore,
+                             @Qualifier(ExecutorConfig.POST_UPLOAD) Executor executor) {
+        this.postService = postService;
+        this.mediaBlobStore = mediaBlobStore;
+        this.executor = executor;
+    }
+
+    public Post save(Integer userId, String content, Post.VisibilityEnum visibility, MultipartFile[] files) {
+        List<StagedBlob> staged = stageAll(files);
+        try {
+            return postService.save(userId, content, visibility, staged);
+        } finally {
+            staged.forEach(mediaBlobStore::discard);
+        }
+    }
+
+    public Post updatePost(Integer postId, String content, Post.VisibilityEnum visibility, MultipartFile file) {
+        List<StagedBlob> staged = stageAll(file != null ? new MultipartFile[]{file} : null);
+        try {
+            return postService.updatePost(postId, content, visibility, staged.isEmpty() ? null : staged.get(0));
+        } finally {
+            staged.forEach(mediaBlobStore::discard);
+        }
+    }
+
+    // Đợi mọi tệp xong rồi mới báo lỗi, để không bỏ sót tệp tạm của các tệp đã ghi được.
+    private List<StagedBlob> stageAll(MultipartFile[] files) {
+        List<CompletableFuture<StagedBlob>> futures = new ArrayList<>();
+        if (files != null) {
+            for (MultipartFile file : files) {
+                if (!file.isEmpty()) {
+                    futures.add(CompletableFuture.supplyAsync(() -> stage(file), executor));
+                }
+            }
+        }
+
+        List<StagedBlob> staged = new ArrayList<>();
+        RuntimeException failure = null;
+        for (CompletableFuture<StagedBlob> future : futures) {
+            try {
+                staged.add(future.join());
+            } catch (CompletionException e) {
+                failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        if (failure != null) {
+            staged.forEach(mediaBlobStore::discard);
+            throw failure;
+        }
+        return staged;
+    }
+
+    private StagedBlob stage(MultipartFile file) {
+        try {
+            return mediaBlobStore.stage(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving file", e);
+        }
+    }
+}
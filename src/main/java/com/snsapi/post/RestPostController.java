@@ -1,24 +1,31 @@
 package com.snsapi.post;
 
 import com.snsapi.comment.CommentDTO;
+import com.snsapi.comment.CommentService;
 import com.snsapi.like.LikeDTO;
-import com.snsapi.media.MediaDTO;
+import com.snsapi.like.LikeService;
+import com.snsapi.like.LikeTarget;
+import com.snsapi.like.LikeToggleResult;
+import com.snsapi.timeline.TimelineService;
 import com.snsapi.user.User;
 import com.snsapi.user.UserDTO;
 import com.snsapi.user.UserServices;
-import com.snsapi.utils.DateConverter;
+import com.snsapi.utils.CursorPage;
+import com.snsapi.utils.FieldSelection;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.security.Principal;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/posts")
@@ -27,56 +34,86 @@ import java.util.stream.Collectors;
 public class RestPostController {
 
     private final PostService postService;
+    private final PostUploadService postUploadService;
+    private final PostFeedAssembler postFeedAssembler;
+    private final TimelineService timelineService;
     private final UserServices userServices;
+    private final LikeService likeService;
+    private final CommentService commentService;
 
+    // Trả 304 khi If-None-Match khớp ETag của trang; ETag lấy từ truy vấn phiên bản, trước khi nạp và dựng trang.
     @GetMapping
-    public ResponseEntity<List<PostDTO>> findAllPosts() {
-        List<Post> posts = postService.getAllPosts();
-
-        List<PostDTO> postDTOs = posts.stream()
-                .map(post -> {
-                    PostDTO postDTO = new PostDTO();
-                    postDTO.setId(post.getId());
-                    postDTO.setUserId(post.getUser() != null ? post.getUser().getId() : null);
-                    postDTO.setContent(post.getContent());
-                    postDTO.setVisibility(post.getVisibility());
-                    postDTO.setCreatedAt(DateConverter.localDateTimeToDateWithSlash(post.getCreatedAt()));
-                    postDTO.setUpdatedAt(DateConverter.localDateTimeToDateWithSlash(post.getUpdatedAt()));
-
-                    List<MediaDTO> mediaDTOs = post.getMedia() != null ?
-                            post.getMedia().stream()
-                                    .map(media -> {
-                                        MediaDTO mediaDTO = new MediaDTO();
-                                        mediaDTO.setId(media.getId());
-                                        mediaDTO.setUrl(media.getUrl());
-                                        return mediaDTO;
-                                    }).collect(Collectors.toList()) : new ArrayList<>();
-
-                    postDTO.setMedia(mediaDTOs);
-
-                    List<CommentDTO> commentDTOs = post.getComments() != null ?
-                            post.getComments().stream()
-                                    .map(comment -> postService.convertToCommentDTO(comment))
-                                    .collect(Collectors.toList()) : new ArrayList<>();
-
-                    postDTO.setComments(commentDTOs);
-
-                    int likeCount = post.getLikeUsers() != null ? post.getLikeUsers().size() : 0;
-                    List<UserDTO> likeByUsers = post.getLikeUsers() != null ?
-                            post.getLikeUsers().stream()
-                                    .map(user -> new UserDTO(user.getId(), user.getName(), user.getProfilePicture()))
-                                    .collect(Collectors.toList()) : new ArrayList<>();
-
-                    LikeDTO likeDTO = new LikeDTO(likeCount, likeByUsers);
-                    postDTO.setLikes(likeDTO);
-
-                    return postDTO;
-                })
-                .collect(Collectors.toList());
+    public ResponseEntity<?> findAllPosts(@RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "size", defaultValue = "20") int size,
+                                          @RequestParam(value = "fields", required = false) String fields,
+                                          @RequestParam(value = "include", required = false) String include,
+                                          Principal principal,
+                                          WebRequest webRequest) {
+        Integer viewerId = viewerIdOf(principal);
+        FieldSelection selection = PostFeedAssembler.parseFields(fields, include);
+        String eTag = postService.getFeedPageETag(cursor, size, viewerId, fields, include);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        CursorPage<Post> page = postService.getFeedPage(cursor, size);
+
+        List<PostDTO> postDTOs = postFeedAssembler.assemble(page.getContent(), viewerId, selection);
+        return ResponseEntity.ok().eTag(eTag).body(new CursorPage<>(postDTOs, page.getNextCursor()));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPosts() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(postService.exportPublicPosts());
+    }
 
+    @GetMapping("/trending")
+    public ResponseEntity<?> findTrending(@RequestParam(value = "size", defaultValue = "20") int size,
+                                          @RequestParam(value = "fields", required = false) String fields,
+                                          @RequestParam(value = "include", required = false) String include,
+                                          Principal principal) {
+        FieldSelection selection = PostFeedAssembler.parseFields(fields, include);
+        List<PostDTO> postDTOs = postFeedAssembler.assemble(postService.getTrending(size), viewerIdOf(principal), selection);
         return ResponseEntity.ok(postDTOs);
     }
 
+    @GetMapping("/home")
+    public ResponseEntity<?> findHomeTimeline(@RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", defaultValue = "20") int size,
+                                              @RequestParam(value = "fields", required = false) String fields,
+                                              @RequestParam(value = "include", required = false) String include,
+                                              Principal principal) {
+        Optional<User> viewer = userServices.findByEmail(principal.getName());
+        if (viewer.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        FieldSelection selection = PostFeedAssembler.parseFields(fields, include);
+        CursorPage<Post> page = postService.getHomePage(viewer.get().getId(), cursor, size);
+
+        List<PostDTO> postDTOs = postFeedAssembler.assemble(page.getContent(), viewer.get().getId(), selection);
+        return ResponseEntity.ok(new CursorPage<>(postDTOs, page.getNextCursor()));
+    }
+
+    @GetMapping("/timeline")
+    public ResponseEntity<?> findFriendTimeline(@RequestParam(value = "cursor", required = false) String cursor,
+                                                @RequestParam(value = "size", defaultValue = "20") int size,
+                                                @RequestParam(value = "fields", required = false) String fields,
+                                                @RequestParam(value = "include", required = false) String include,
+                                                Principal principal) {
+        Optional<User> viewer = userServices.findByEmail(principal.getName());
+        if (viewer.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        FieldSelection selection = PostFeedAssembler.parseFields(fields, include);
+        CursorPage<Post> page = timelineService.getFriendFeed(viewer.get().getId(), cursor, size);
+
+        List<PostDTO> postDTOs = postFeedAssembler.assemble(page.getContent(), viewer.get().getId(), selection);
+        return ResponseEntity.ok(new CursorPage<>(postDTOs, page.getNextCursor()));
+    }
+
     @PostMapping
     public ResponseEntity<?> save(@RequestParam(value = "file", required = false) MultipartFile[] files,
                                   @RequestParam("content") String content,
@@ -91,29 +128,8 @@ public class RestPostController {
         }
 
         try {
-            Post savedPost = postService.save(userId, content, visibility, files);
-
-            PostDTO postDTO = new PostDTO();
-            postDTO.setId(savedPost.getId());
-            postDTO.setUserId(savedPost.getUser().getId());
-            postDTO.setContent(savedPost.getContent());
-            postDTO.setVisibility(savedPost.getVisibility());
-            postDTO.setCreatedAt(DateConverter.localDateTimeToDateWithSlash(savedPost.getCreatedAt()));
-            postDTO.setUpdatedAt(DateConverter.localDateTimeToDateWithSlash(savedPost.getUpdatedAt()));
-            postDTO.setMedia(savedPost.getMedia().stream().map(media -> {
-                MediaDTO mediaDTO = new MediaDTO();
-                mediaDTO.setId(media.getId());
-                mediaDTO.setUrl(media.getUrl());
-                return mediaDTO;
-            }).collect(Collectors.toList()));
-
-            int likeCount = savedPost.getLikeUsers().size();
-            List<UserDTO> likeByUsers = savedPost.getLikeUsers().stream()
-                    .map(user -> new UserDTO(user.getId(), user.getName(), user.getProfilePicture()))
-                    .collect(Collectors.toList());
-
-            LikeDTO likeDTO = new LikeDTO(likeCount, likeByUsers);
-            postDTO.setLikes(likeDTO);
+            Post savedPost = postUploadService.save(userId, content, visibility, files);
+            PostDTO postDTO = postFeedAssembler.assemble(List.of(savedPost)).get(0);
 
             return ResponseEntity.created(URI.create("/api/v1/posts/" + savedPost.getId())).body(postDTO);
         } catch (Exception e) {
@@ -132,31 +148,10 @@ public class RestPostController {
         }
 
         try {
-            Post updatedPost = postService.updatePost(postId, content, visibility, file);
+            Post updatedPost = postUploadService.updatePost(postId, content, visibility, file);
 
             if (updatedPost != null) {
-                PostDTO postDTO = new PostDTO();
-                postDTO.setId(updatedPost.getId());
-                postDTO.setUserId(updatedPost.getUser().getId());
-                postDTO.setContent(updatedPost.getContent());
-                postDTO.setVisibility(updatedPost.getVisibility());
-                postDTO.setCreatedAt(DateConverter.localDateTimeToDateWithSlash(updatedPost.getCreatedAt()));
-                postDTO.setUpdatedAt(DateConverter.localDateTimeToDateWithSlash(updatedPost.getUpdatedAt()));
-                postDTO.setMedia(updatedPost.getMedia().stream().map(media -> {
-                    MediaDTO mediaDTO = new MediaDTO();
-                    mediaDTO.setId(media.getId());
-                    mediaDTO.setUrl(media.getUrl());
-                    return mediaDTO;
-                }).collect(Collectors.toList()));
-
-                int likeCount = updatedPost.getLikeUsers().size();
-                List<UserDTO> likeByUsers = updatedPost.getLikeUsers().stream()
-                        .map(user -> new UserDTO(user.getId(), user.getName(), user.getProfilePicture()))
-                        .collect(Collectors.toList());
-
-                LikeDTO likeDTO = new LikeDTO(likeCount, likeByUsers);
-                postDTO.setLikes(likeDTO);
-
+                PostDTO postDTO = postFeedAssembler.assemble(List.of(updatedPost)).get(0);
                 return ResponseEntity.ok(postDTO);
             } else {
                 return ResponseEntity.notFound().build();
@@ -183,19 +178,50 @@ public class RestPostController {
         Optional<User> user = userServices.findByEmail(email);
 
         if (user.isPresent()) {
-            postService.toggleLikePost(id, user.get().getId());
+            LikeToggleResult result = postService.toggleLikePost(id, user.get().getId());
 
-            int likeCount = postService.countLikes(id);
-            List<User> likedUsers = postService.getUsersWhoLikedPost(id);
-
-            List<UserDTO> userDTOs = likedUsers.stream()
-                    .map(likedUser -> new UserDTO(likedUser.getId(), likedUser.getName(), likedUser.getProfilePicture()))
-                    .collect(Collectors.toList());
-
-            LikeDTO response = new LikeDTO(likeCount, userDTOs);
+            LikeDTO response = new LikeDTO();
+            response.setLikeCount(result.getLikeCount());
+            response.setLikedByMe(result.isLiked());
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<?> findLikers(@PathVariable Integer id,
+                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            CursorPage<UserDTO> page = likeService.getLikers(LikeTarget.POST, id, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/{id}/comments")
+    public ResponseEntity<?> findComments(@PathVariable Integer id,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "size", defaultValue = "20") int size,
+                                          Principal principal) {
+        try {
+            CursorPage<CommentDTO> page = commentService.getComments(id, cursor, size, viewerIdOf(principal));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private Integer viewerIdOf(Principal principal) {
+        if (principal == null) {
+            return null;
+        }
+        return userServices.findByEmail(principal.getName()).map(User::getId).orElse(null);
+    }
 }
@@ -0,0 +1,26 @@
+package com.snsapi.search;
+
+import com.snsapi.post.Post;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.ZoneId;
+
+// Ảnh chụp các trường của bài viết cần đưa vào chỉ mục, tách khỏi entity để dùng được sau khi transaction kết thúc.
+@Data
+@AllArgsConstructor
+public class IndexedPost {
+    private int id;
+    private int authorId;
+    private String content;
+    private String visibility;
+    private long createdAt;
+
+    public static IndexedPost of(Post post) {
+        long createdAt = post.getCreatedAt() != null
+                ? post.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        return new IndexedPost(post.getId(), post.getUser().getId(), post.getContent(),
+                String.valueOf(post.getVisibility()), createdAt);
+    }
+}
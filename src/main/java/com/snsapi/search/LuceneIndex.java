@@ -0,0 +1,321 @@
+package com.snsapi.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Chỉ mục Lucene trên đĩa cục bộ: một IndexWriter dùng chung cho mọi luồng ghi, SearcherManager cho luồng đọc.
+// Thay đổi được thấy ngay sau refresh(), và được commit xuống đĩa định kỳ cũng như khi tắt ứng dụng.
+// Chỉ mục nằm trong thư mục gen-N, tệp "current" trỏ tới thế hệ đang dùng. Dựng lại ghi vào thế hệ mới trong khi
+// tìm kiếm vẫn chạy trên thế hệ cũ; thay đổi trực tiếp trong lúc đó được ghi vào cả hai, rồi thế hệ mới được đổi vào.
+@Slf4j
+public abstract class LuceneIndex {
+    private static final String CURRENT = "current";
+    private static final String GENERATION_PREFIX = "gen-";
+
+    private final Path root;
+    private final Analyzer analyzer;
+    // Ghi tài liệu, refresh và commit giữ khoá đọc; bắt đầu, đổi và huỷ thế hệ giữ khoá ghi.
+    private final ReadWriteLock generationLock = new ReentrantReadWriteLock();
+    // Id đã được ghi trực tiếp trong lúc dựng lại: bản đọc từ database của các id này có thể đã cũ nên bị bỏ qua.
+    private final Map<Term, Boolean> writtenDuringRebuild = new ConcurrentHashMap<>();
+    private volatile Generation current;
+    private Generation rebuilding;
+
+    protected LuceneIndex(Path root, Analyzer analyzer) throws IOException {
+        Files.createDirectories(root);
+        this.root = root;
+        this.analyzer = analyzer;
+        Path pointer = root.resolve(CURRENT);
+        int number = Files.exists(pointer)
+                ? Integer.parseInt(Files.readString(pointer, StandardCharsets.UTF_8).trim())
+                : 1;
+        this.current = Generation.open(root, number, IndexWriterConfig.OpenMode.CREATE_OR_APPEND, analyzer);
+        writePointer(number);
+        deleteOtherGenerations(number);
+    }
+
+    protected Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    protected void updateDocument(Term idTerm, Document document) {
+        generationLock.readLock().lock();
+        try {
+            Generation next = rebuilding;
+            if (next == null) {
+                current.update(idTerm, document);
+                return;
+            }
+            writtenDuringRebuild.compute(idTerm, (term, written) -> {
+                current.update(term, document);
+                next.update(term, document);
+                return Boolean.TRUE;
+            });
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    protected void deleteDocuments(Term idTerm) {
+        generationLock.readLock().lock();
+        try {
+            Generation next = rebuilding;
+            if (next == null) {
+                current.delete(idTerm);
+                return;
+            }
+            writtenDuringRebuild.compute(idTerm, (term, written) -> {
+                current.delete(term);
+                next.delete(term);
+                return Boolean.TRUE;
+            });
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    // Ghi tài liệu đọc từ database vào thế hệ đang dựng; bỏ qua nếu id đã được ghi trực tiếp sau khi bắt đầu dựng.
+    protected void rebuildDocument(Term idTerm, Document document) {
+        generationLock.readLock().lock();
+        try {
+            Generation next = rebuilding;
+            if (next == null) {
+                throw new IllegalStateException("Chỉ mục không ở trạng thái dựng lại.");
+            }
+            writtenDuringRebuild.compute(idTerm, (term, written) -> {
+                if (written == null) {
+                    next.update(term, document);
+                }
+                return written;
+            });
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    // Mở thế hệ mới, rỗng; từ lúc này thay đổi trực tiếp được ghi vào cả hai thế hệ.
+    public void beginRebuild() {
+        generationLock.writeLock().lock();
+        try {
+            if (rebuilding != null) {
+                throw new IllegalStateException("Chỉ mục đang được dựng lại.");
+            }
+            int number = current.number + 1;
+            FileSystemUtils.deleteRecursively(Generation.pathOf(root, number));
+            rebuilding = Generation.open(root, number, IndexWriterConfig.OpenMode.CREATE, analyzer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+    }
+
+    // Commit thế hệ mới, đổi nó thành thế hệ đang dùng rồi đóng và xoá thế hệ cũ.
+    public void finishRebuild() {
+        Generation previous;
+        generationLock.writeLock().lock();
+        try {
+            if (rebuilding == null) {
+                throw new IllegalStateException("Chỉ mục không ở trạng thái dựng lại.");
+            }
+            rebuilding.writer.commit();
+            rebuilding.searcherManager.maybeRefresh();
+            writePointer(rebuilding.number);
+            previous = current;
+            current = rebuilding;
+            rebuilding = null;
+            writtenDuringRebuild.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+        discard(previous);
+    }
+
+    // Bỏ thế hệ đang dựng dở; thế hệ đang dùng không bị ảnh hưởng.
+    public void abortRebuild() {
+        Generation abandoned;
+        generationLock.writeLock().lock();
+        try {
+            abandoned = rebuilding;
+            rebuilding = null;
+            writtenDuringRebuild.clear();
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+        if (abandoned != null) {
+            discard(abandoned);
+        }
+    }
+
+    public int numDocs() {
+        return current.writer.getDocStats().numDocs;
+    }
+
+    public void refresh() {
+        generationLock.readLock().lock();
+        try {
+            current.searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    protected <T> T withSearcher(SearchFunction<T> function) {
+        try {
+            while (true) {
+                Generation generation = current;
+                IndexSearcher searcher;
+                try {
+                    searcher = generation.searcherManager.acquire();
+                } catch (AlreadyClosedException e) {
+                    // Thế hệ vừa bị đổi ra và đóng: lấy lại thế hệ mới.
+                    if (generation == current) {
+                        throw e;
+                    }
+                    continue;
+                }
+                try {
+                    return function.apply(searcher);
+                } finally {
+                    generation.searcherManager.release(searcher);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.commit-interval-ms:5000}")
+    public void commit() {
+        generationLock.readLock().lock();
+        try {
+            IndexWriter writer = current.writer;
+            if (writer.isOpen() && writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        abortRebuild();
+        commit();
+        current.close();
+    }
+
+    private void writePointer(int number) throws IOException {
+        Path temp = root.resolve(CURRENT + ".tmp");
+        Files.writeString(temp, String.valueOf(number), StandardCharsets.UTF_8);
+        Files.move(temp, root.resolve(CURRENT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Thế hệ còn sót lại sau một lần dựng bị dừng giữa chừng.
+    private void deleteOtherGenerations(int keep) throws IOException {
+        try (DirectoryStream<Path> generations = Files.newDirectoryStream(root, GENERATION_PREFIX + "*")) {
+            for (Path generation : generations) {
+                if (!generation.equals(Generation.pathOf(root, keep))) {
+                    FileSystemUtils.deleteRecursively(generation);
+                }
+            }
+        }
+    }
+
+    private static void discard(Generation generation) {
+        try {
+            generation.close();
+            FileSystemUtils.deleteRecursively(generation.path);
+        } catch (IOException e) {
+            // Thư mục còn lại được xoá ở lần khởi động sau.
+            log.warn("Could not remove index generation {}", generation.path, e);
+        }
+    }
+
+    @FunctionalInterface
+    protected interface SearchFunction<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    private static class Generation {
+        private final int number;
+        private final Path path;
+        private final Directory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+
+        private Generation(int number, Path path, Directory directory, IndexWriter writer) throws IOException {
+            this.number = number;
+            this.path = path;
+            this.directory = directory;
+            this.writer = writer;
+            this.searcherManager = new SearcherManager(writer, null);
+        }
+
+        private static Path pathOf(Path root, int number) {
+            return root.resolve(GENERATION_PREFIX + number);
+        }
+
+        private static Generation open(Path root, int number, IndexWriterConfig.OpenMode mode, Analyzer analyzer)
+                throws IOException {
+            Path path = pathOf(root, number);
+            Files.createDirectories(path);
+            Directory directory = FSDirectory.open(path);
+            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            config.setOpenMode(mode);
+            return new Generation(number, path, directory, new IndexWriter(directory, config));
+        }
+
+        private void update(Term idTerm, Document document) {
+            try {
+                writer.updateDocument(idTerm, document);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void delete(Term idTerm) {
+            try {
+                writer.deleteDocuments(idTerm);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void close() throws IOException {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.snsapi.search;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Radix trie trên các từ đã chuẩn hoá: mỗi cạnh mang một đoạn ký tự, mỗi nút giữ mảng int id (đã sắp xếp)
+// của những người dùng có từ kết thúc tại nút đó. Không tự đồng bộ; TypeaheadIndex khoá bên ngoài.
+class NameTrie {
+    private static final int[] NO_IDS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node(new char[0]);
+
+    void add(String key, int id) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = findChild(node, key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(i).toCharArray());
+                leaf.ids = new int[]{id};
+                node.insertChild(-index - 1, leaf);
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length) {
+                Node middle = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.children = new Node[]{child};
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        node.ids = insertSorted(node.ids, id);
+    }
+
+    // Bỏ id khỏi từ key; nút không còn id thì bị gỡ (không còn con) hoặc gộp với con duy nhất của nó,
+    // nên đổi tên nhiều lần không để lại nút rỗng.
+    void remove(String key, int id) {
+        remove(root, key, 0, id);
+    }
+
+    private static void remove(Node node, String key, int i, int id) {
+        if (i == key.length()) {
+            node.ids = removeSorted(node.ids, id);
+            return;
+        }
+        int index = findChild(node, key.charAt(i));
+        if (index < 0) {
+            return;
+        }
+        Node child = node.children[index];
+        int common = commonPrefix(child.label, key, i);
+        if (common < child.label.length) {
+            return;
+        }
+        remove(child, key, i + common, id);
+        if (child.ids.length > 0) {
+            return;
+        }
+        if (child.children.length == 0) {
+            node.removeChild(index);
+        } else if (child.children.length == 1) {
+            Node only = child.children[0];
+            char[] label = Arrays.copyOf(child.label, child.label.length + only.label.length);
+            System.arraycopy(only.label, 0, label, child.label.length, only.label.length);
+            only.label = label;
+            node.children[index] = only;
+        }
+    }
+
+    // Số nút kể cả gốc.
+    int nodeCount() {
+        return count(root);
+    }
+
+    private static int count(Node node) {
+        int count = 1;
+        for (Node child : node.children) {
+            count += count(child);
+        }
+        return count;
+    }
+
+    // Duyệt các id có từ bắt đầu bằng prefix theo thứ tự từ điển; dừng khi visitor trả về false.
+    void visitPrefix(String prefix, IntPredicate visitor) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = findChild(node, prefix.charAt(i));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common < prefix.length() && common < child.label.length) {
+                return;
+            }
+            node = child;
+            i += common;
+        }
+        visit(node, visitor);
+    }
+
+    private boolean visit(Node node, IntPredicate visitor) {
+        for (int id : node.ids) {
+            if (!visitor.test(id)) {
+                return false;
+            }
+        }
+        for (Node child : node.children) {
+            if (!visit(child, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int findChild(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = node.children[mid].label[0];
+            if (c < first) {
+                low = mid + 1;
+            } else if (c > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int commonPrefix(char[] label, String key, int offset) {
+        int n = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < n && label[i] == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int[] insertSorted(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        int at = -index - 1;
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, at);
+        result[at] = id;
+        System.arraycopy(ids, at, result, at + 1, ids.length - at);
+        return result;
+    }
+
+    private static int[] removeSorted(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return NO_IDS;
+        }
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return result;
+    }
+
+    private static class Node {
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+        private int[] ids = NO_IDS;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        private void insertChild(int at, Node child) {
+            Node[] result = new Node[children.length + 1];
+            System.arraycopy(children, 0, result, 0, at);
+            result[at] = child;
+            System.arraycopy(children, at, result, at + 1, children.length - at);
+            children = result;
+        }
+
+        private void removeChild(int at) {
+            if (children.length == 1) {
+                children = NO_CHILDREN;
+                return;
+            }
+            Node[] result = new Node[children.length - 1];
+            System.arraycopy(children, 0, result, 0, at);
+            System.arraycopy(children, at + 1, result, at, children.length - at - 1);
+            children = result;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.snsapi.search;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+// Chia (0, maxId] thành các đoạn batchSize id và xử lý song song trên executor (ExecutorConfig.SEARCH_REINDEX_BATCHES);
+// chờ tất cả xong mới trả về. Một đoạn lỗi thì huỷ các đoạn còn lại.
+class ParallelReindex {
+    interface RangeTask {
+        void index(int fromExclusive, int toInclusive);
+    }
+
+    static void run(int maxId, int batchSize, AsyncTaskExecutor executor, RangeTask task) {
+        List<Future<?>> batches = new ArrayList<>();
+        try {
+            for (int from = 0; from < maxId; from += batchSize) {
+                int lower = from;
+                batches.add(executor.submit(() -> task.index(lower, lower + batchSize)));
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (InterruptedException e) {
+            cancel(batches);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dựng lại chỉ mục bị gián đoạn.", e);
+        } catch (ExecutionException e) {
+            cancel(batches);
+            throw new IllegalStateException("Không thể dựng lại chỉ mục.", e.getCause());
+        }
+    }
+
+    private static void cancel(List<Future<?>> batches) {
+        for (Future<?> batch : batches) {
+            batch.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.snsapi.search;
+
+import com.snsapi.config.ExecutorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executor;
+
+// Dựng lại chỉ mục bài viết từ database: chạy khi khởi động với --reindex-posts, hoặc khi chỉ mục còn trống.
+// Bảng post được chia theo đoạn id (ParallelReindex), mỗi đoạn do một luồng đọc bằng JDBC và ghi vào thế hệ chỉ mục mới;
+// tìm kiếm vẫn dùng chỉ mục cũ cho tới khi dựng xong (LuceneIndex.finishRebuild).
+@Slf4j
+@Component
+public class PostIndexRebuilder implements ApplicationRunner {
+    private static final String SELECT_RANGE = "SELECT id, user_id, content, visibility, created_at FROM post " +
+            "WHERE id > ? AND id <= ? AND user_id IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostSearchIndex postSearchIndex;
+    private final Executor executor;
+    private final AsyncTaskExecutor batchExecutor;
+
+    @Value("${search.reindex.batch-size:1000}")
+    private int batchSize;
+
+    public PostIndexRebuilder(JdbcTemplate jdbcTemplate,
+                              PostSearchIndex postSearchIndex,
+                              @Qualifier(ExecutorConfig.SEARCH_REINDEX) Executor executor,
+                              @Qualifier(ExecutorConfig.SEARCH_REINDEX_BATCHES) AsyncTaskExecutor batchExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postSearchIndex = postSearchIndex;
+        this.executor = executor;
+        this.batchExecutor = batchExecutor;
+    }
+
+    // Không giữ luồng khởi động: ứng dụng nhận request ngay, bài viết mới được ghi vào cả hai thế hệ trong lúc dựng.
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("reindex-posts") || postSearchIndex.numDocs() == 0) {
+            executor.execute(this::rebuildQuietly);
+        }
+    }
+
+    // Bắt đầu thế hệ mới trước khi đọc MAX(id): bài viết có id lớn hơn được ghi trực tiếp vào thế hệ mới.
+    public void rebuild() {
+        long start = System.nanoTime();
+        postSearchIndex.beginRebuild();
+        try {
+            Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM post", Integer.class);
+            ParallelReindex.run(maxId != null ? maxId : 0, batchSize, batchExecutor, this::indexRange);
+            postSearchIndex.finishRebuild();
+            log.info("Rebuilt post index up to id {} in {} ms", maxId, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            postSearchIndex.abortRebuild();
+            throw e;
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Post index rebuild failed; keeping the previous index", e);
+        }
+    }
+
+    private void indexRange(int fromExclusive, int toInclusive) {
+        jdbcTemplate.query(SELECT_RANGE, rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            postSearchIndex.reindex(new IndexedPost(
+                    rs.getInt("id"),
+                    rs.getInt("user_id"),
+                    rs.getString("content"),
+                    String.valueOf(rs.getString("visibility")),
+                    createdAt != null ? createdAt.getTime() : 0L));
+        }, fromExclusive, toInclusive);
+    }
+}
@@ -0,0 +1,120 @@
+package com.snsapi.search;
+
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.post.Post;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.StoredFields;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Chỉ mục toàn văn cho nội dung bài viết. Điểm = độ liên quan (BM25) + điểm mới (giảm dần theo tuổi bài viết,
+// còn một nửa sau RECENCY_PIVOT). Quyền xem được lọc ngay trong Lucene theo cùng quy tắc với bảng tin trang chủ.
+@Component
+public class PostSearchIndex extends LuceneIndex {
+    private static final Duration RECENCY_PIVOT = Duration.ofDays(7);
+    private static final float RECENCY_WEIGHT = 1.0f;
+
+    private static final String ID = "id";
+    private static final String AUTHOR_ID = "authorId";
+    private static final String CONTENT = "content";
+    private static final String VISIBILITY = "visibility";
+    private static final String CREATED_AT = "createdAt";
+
+    public PostSearchIndex(@Value("${search.index.dir:data/index}") String indexDir) throws IOException {
+        super(Paths.get(indexDir, "posts"), new StandardAnalyzer());
+    }
+
+    public void index(IndexedPost post) {
+        updateDocument(new Term(ID, String.valueOf(post.getId())), toDocument(post));
+    }
+
+    // Chỉ dùng bởi PostIndexRebuilder, giữa beginRebuild và finishRebuild.
+    void reindex(IndexedPost post) {
+        rebuildDocument(new Term(ID, String.valueOf(post.getId())), toDocument(post));
+    }
+
+    public void indexAndRefresh(IndexedPost post) {
+        index(post);
+        refresh();
+    }
+
+    public void deleteAndRefresh(int postId) {
+        deleteDocuments(new Term(ID, String.valueOf(postId)));
+        refresh();
+    }
+
+    // Id bài viết theo thứ tự điểm giảm dần, bỏ qua offset kết quả đầu.
+    public List<Integer> search(String text, Integer viewerId, FriendIdSet friends, int offset, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        if (text == null || text.isBlank() || limit <= 0) {
+            return ids;
+        }
+
+        SimpleQueryParser parser = new SimpleQueryParser(getAnalyzer(), CONTENT);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query query = new BooleanQuery.Builder()
+                .add(parser.parse(text), BooleanClause.Occur.MUST)
+                .add(LongPoint.newDistanceFeatureQuery(CREATED_AT, RECENCY_WEIGHT, System.currentTimeMillis(),
+                        RECENCY_PIVOT.toMillis()), BooleanClause.Occur.SHOULD)
+                .add(visibilityFilter(viewerId, friends), BooleanClause.Occur.FILTER)
+                .build();
+
+        return withSearcher(searcher -> {
+            TopDocs topDocs = searcher.search(query, offset + limit);
+            StoredFields storedFields = searcher.storedFields();
+            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+            for (int i = offset; i < scoreDocs.length; i++) {
+                ids.add(Integer.parseInt(storedFields.document(scoreDocs[i].doc).get(ID)));
+            }
+            return ids;
+        });
+    }
+
+    // PUBLIC, hoặc bài của chính người xem, hoặc FRIENDS_ONLY của bạn bè.
+    private Query visibilityFilter(Integer viewerId, FriendIdSet friends) {
+        BooleanQuery.Builder filter = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(VISIBILITY, Post.VisibilityEnum.PUBLIC.name())), BooleanClause.Occur.SHOULD);
+        if (viewerId != null) {
+            filter.add(IntPoint.newExactQuery(AUTHOR_ID, viewerId), BooleanClause.Occur.SHOULD);
+            if (!friends.isEmpty()) {
+                filter.add(new BooleanQuery.Builder()
+                        .add(new TermQuery(new Term(VISIBILITY, Post.VisibilityEnum.FRIENDS_ONLY.name())), BooleanClause.Occur.FILTER)
+                        .add(IntPoint.newSetQuery(AUTHOR_ID, friends.toArray()), BooleanClause.Occur.FILTER)
+                        .build(), BooleanClause.Occur.SHOULD);
+            }
+        }
+        return filter.build();
+    }
+
+    private Document toDocument(IndexedPost post) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(post.getId()), Field.Store.YES));
+        document.add(new IntPoint(AUTHOR_ID, post.getAuthorId()));
+        document.add(new StringField(VISIBILITY, post.getVisibility(), Field.Store.NO));
+        document.add(new TextField(CONTENT, post.getContent() != null ? post.getContent() : "", Field.Store.NO));
+        document.add(new LongPoint(CREATED_AT, post.getCreatedAt()));
+        document.add(new NumericDocValuesField(CREATED_AT, post.getCreatedAt()));
+        return document;
+    }
+}
@@ -0,0 +1,157 @@
+package com.snsapi.search;
+
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.user.UserDTO;
+import com.snsapi.user.UserSummaryCache;
+import com.snsapi.utils.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Gợi ý tên khi gõ, hoàn toàn trong bộ nhớ: mỗi từ của tên đã chuẩn hoá được đưa vào một radix trie.
+// Một người dùng khớp khi mọi từ trong truy vấn là tiền tố của một từ trong tên ("ng hi" khớp "Nguyễn Thị Hiền").
+// Bạn bè của người xem được xếp trước, sau đó là người khác theo thứ tự từ điển của từ khớp.
+// Chỉ giữ tên đã chuẩn hoá; người dùng trả ra là bản sao lấy từ UserSummaryCache, nên có avatarVariants hiện tại.
+@Component
+@RequiredArgsConstructor
+public class TypeaheadIndex implements ApplicationRunner {
+    private final JdbcTemplate jdbcTemplate;
+    private final UserSummaryCache userSummaryCache;
+
+    private final NameTrie trie = new NameTrie();
+    // id -> tên đã chuẩn hoá.
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.query("SELECT id, name FROM users", rs -> {
+            put(rs.getInt("id"), rs.getString("name"));
+        });
+    }
+
+    public void put(UserDTO user) {
+        put(user.getId(), user.getName());
+    }
+
+    private void put(int userId, String name) {
+        String folded = TextNormalizer.fold(name);
+        lock.writeLock().lock();
+        try {
+            String previous = names.put(userId, folded);
+            if (previous != null) {
+                for (String word : words(previous)) {
+                    trie.remove(word, userId);
+                }
+            }
+            for (String word : words(folded)) {
+                trie.add(word, userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int userId) {
+        lock.writeLock().lock();
+        try {
+            String previous = names.remove(userId);
+            if (previous != null) {
+                for (String word : words(previous)) {
+                    trie.remove(word, userId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<UserDTO> suggest(String query, FriendIdSet friends, int limit) {
+        String[] queryWords = words(TextNormalizer.fold(query));
+        List<UserDTO> suggestions = new ArrayList<>();
+        if (queryWords.length == 0 || limit <= 0) {
+            return suggestions;
+        }
+
+        Set<Integer> matched = new LinkedHashSet<>();
+        // id bạn bè khớp -> tên đã chuẩn hoá lúc đọc, để sắp xếp không phụ thuộc việc đổi tên đồng thời.
+        List<Map.Entry<Integer, String>> matchingFriends = new ArrayList<>();
+        for (int friendId : friends.toArray()) {
+            String folded = names.get(friendId);
+            if (folded != null && matches(folded, queryWords)) {
+                matchingFriends.add(Map.entry(friendId, folded));
+            }
+        }
+        matchingFriends.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, String> friend : matchingFriends) {
+            if (matched.size() >= limit) {
+                break;
+            }
+            matched.add(friend.getKey());
+        }
+
+        // Từ dài nhất trong truy vấn cho tập ứng viên nhỏ nhất; các từ còn lại được kiểm tra trên tên.
+        String longest = queryWords[0];
+        for (String word : queryWords) {
+            if (word.length() > longest.length()) {
+                longest = word;
+            }
+        }
+        lock.readLock().lock();
+        try {
+            trie.visitPrefix(longest, id -> {
+                if (matched.size() >= limit) {
+                    return false;
+                }
+                String folded = names.get(id);
+                if (folded != null && matches(folded, queryWords)) {
+                    matched.add(id);
+                }
+                return matched.size() < limit;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Integer, UserDTO> users = userSummaryCache.getAll(matched);
+        for (Integer id : matched) {
+            UserDTO user = users.get(id);
+            if (user != null) {
+                suggestions.add(user);
+            }
+        }
+        return suggestions;
+    }
+
+    private static boolean matches(String folded, String[] queryWords) {
+        String[] nameWords = words(folded);
+        for (String queryWord : queryWords) {
+            boolean found = false;
+            for (String nameWord : nameWords) {
+                if (nameWord.startsWith(queryWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] words(String folded) {
+        return folded.isEmpty() ? new String[0] : folded.split(" ");
+    }
+}
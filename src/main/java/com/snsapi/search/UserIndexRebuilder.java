@@ -0,0 +1,75 @@
+package com.snsapi.search;
+
+import com.snsapi.config.ExecutorConfig;
+import com.snsapi.user.UserDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+// Dựng lại chỉ mục người dùng: khi khởi động với --reindex-users, hoặc khi chỉ mục còn trống.
+// Cùng cách với PostIndexRebuilder: dựng vào thế hệ mới trên luồng riêng rồi mới đổi vào.
+@Slf4j
+@Component
+public class UserIndexRebuilder implements ApplicationRunner {
+    private static final String SELECT_RANGE = "SELECT id, name, profile_picture FROM users WHERE id > ? AND id <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserSearchIndex userSearchIndex;
+    private final Executor executor;
+    private final AsyncTaskExecutor batchExecutor;
+
+    @Value("${search.reindex.batch-size:1000}")
+    private int batchSize;
+
+    public UserIndexRebuilder(JdbcTemplate jdbcTemplate,
+                              UserSearchIndex userSearchIndex,
+                              @Qualifier(ExecutorConfig.SEARCH_REINDEX) Executor executor,
+                              @Qualifier(ExecutorConfig.SEARCH_REINDEX_BATCHES) AsyncTaskExecutor batchExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userSearchIndex = userSearchIndex;
+        this.executor = executor;
+        this.batchExecutor = batchExecutor;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("reindex-users") || userSearchIndex.numDocs() == 0) {
+            executor.execute(this::rebuildQuietly);
+        }
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        userSearchIndex.beginRebuild();
+        try {
+            Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Integer.class);
+            ParallelReindex.run(maxId != null ? maxId : 0, batchSize, batchExecutor, this::indexRange);
+            userSearchIndex.finishRebuild();
+            log.info("Rebuilt user index up to id {} in {} ms", maxId, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            userSearchIndex.abortRebuild();
+            throw e;
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("User index rebuild failed; keeping the previous index", e);
+        }
+    }
+
+    private void indexRange(int fromExclusive, int toInclusive) {
+        jdbcTemplate.query(SELECT_RANGE, rs -> {
+            userSearchIndex.reindex(new UserDTO(rs.getInt("id"), rs.getString("name"), rs.getString("profile_picture")));
+        }, fromExclusive, toInclusive);
+    }
+}
@@ -0,0 +1,133 @@
+package com.snsapi.search;
+
+import com.snsapi.user.UserDTO;
+import com.snsapi.utils.TextNormalizer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.StoredFields;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Tìm người dùng theo tên trên trigram của tên đã bỏ dấu (TextNormalizer.fold), nên "Hien" tìm được "Hiền"
+// và chuỗi con ở giữa tên vẫn khớp. Tên có từ bắt đầu bằng từ khoá được xếp trên.
+@Component
+public class UserSearchIndex extends LuceneIndex {
+    private static final int GRAM_SIZE = 3;
+    private static final float MIN_GRAM_MATCH = 0.75f;
+    private static final float WORD_PREFIX_BOOST = 2.0f;
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String PROFILE_PICTURE = "profilePicture";
+    private static final String GRAMS = "grams";
+    private static final String WORDS = "words";
+
+    public UserSearchIndex(@Value("${search.index.dir:data/index}") String indexDir) throws IOException {
+        super(Paths.get(indexDir, "users"), new PerFieldAnalyzerWrapper(new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                return new TokenStreamComponents(new NGramTokenizer(GRAM_SIZE, GRAM_SIZE));
+            }
+        }, Map.of(WORDS, new WhitespaceAnalyzer())));
+    }
+
+    public void index(UserDTO user) {
+        updateDocument(new Term(ID, String.valueOf(user.getId())), toDocument(user));
+    }
+
+    // Chỉ dùng bởi UserIndexRebuilder, giữa beginRebuild và finishRebuild.
+    void reindex(UserDTO user) {
+        rebuildDocument(new Term(ID, String.valueOf(user.getId())), toDocument(user));
+    }
+
+    public void indexAndRefresh(UserDTO user) {
+        index(user);
+        refresh();
+    }
+
+    public void deleteAndRefresh(int userId) {
+        deleteDocuments(new Term(ID, String.valueOf(userId)));
+        refresh();
+    }
+
+    public List<UserDTO> search(String name, int offset, int limit) {
+        List<UserDTO> users = new ArrayList<>();
+        String folded = TextNormalizer.fold(name);
+        if (folded.isEmpty() || limit <= 0) {
+            return users;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        if (folded.length() < GRAM_SIZE) {
+            query.add(new PrefixQuery(new Term(WORDS, folded)), BooleanClause.Occur.MUST);
+        } else {
+            Set<String> grams = trigrams(folded);
+            BooleanQuery.Builder gramQuery = new BooleanQuery.Builder();
+            for (String gram : grams) {
+                gramQuery.add(new TermQuery(new Term(GRAMS, gram)), BooleanClause.Occur.SHOULD);
+            }
+            gramQuery.setMinimumNumberShouldMatch(Math.max(1, (int) Math.ceil(grams.size() * MIN_GRAM_MATCH)));
+            query.add(gramQuery.build(), BooleanClause.Occur.MUST);
+        }
+        for (String word : folded.split(" ")) {
+            query.add(new BoostQuery(new PrefixQuery(new Term(WORDS, word)), WORD_PREFIX_BOOST), BooleanClause.Occur.SHOULD);
+        }
+
+        return withSearcher(searcher -> {
+            TopDocs topDocs = searcher.search(query.build(), offset + limit);
+            StoredFields storedFields = searcher.storedFields();
+            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+            for (int i = offset; i < scoreDocs.length; i++) {
+                Document document = storedFields.document(scoreDocs[i].doc);
+                users.add(new UserDTO(Integer.parseInt(document.get(ID)), document.get(NAME), document.get(PROFILE_PICTURE)));
+            }
+            return users;
+        });
+    }
+
+    private Set<String> trigrams(String folded) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private Document toDocument(UserDTO user) {
+        String folded = TextNormalizer.fold(user.getName());
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(user.getId()), Field.Store.YES));
+        if (user.getName() != null) {
+            document.add(new StoredField(NAME, user.getName()));
+        }
+        if (user.getProfilePicture() != null) {
+            document.add(new StoredField(PROFILE_PICTURE, user.getProfilePicture()));
+        }
+        document.add(new TextField(GRAMS, folded, Field.Store.NO));
+        document.add(new TextField(WORDS, folded, Field.Store.NO));
+        return document;
+    }
+}
@@ -0,0 +1,54 @@
+package com.snsapi.seed;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Gom các dòng của một câu INSERT và ghi bằng JDBC batch, mỗi lần tối đa batchSize dòng, giữ nguyên thứ tự thêm vào.
+class BatchInserter {
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+    private final int batchSize;
+    private final List<Object[]> rows = new ArrayList<>();
+    private long inserted;
+    private long nextId;
+
+    BatchInserter(JdbcTemplate jdbcTemplate, String sql, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sql = sql;
+        this.batchSize = batchSize;
+    }
+
+    void add(Object... row) {
+        rows.add(row);
+    }
+
+    // Với bảng mà seeder không tự đánh id: addWithNextId thêm id tăng dần, bắt đầu sau maxId.
+    void startIdsAfter(long maxId) {
+        nextId = maxId + 1;
+    }
+
+    void addWithNextId(Object... row) {
+        Object[] withId = new Object[row.length + 1];
+        withId[0] = nextId++;
+        System.arraycopy(row, 0, withId, 1, row.length);
+        rows.add(withId);
+    }
+
+    boolean isFull() {
+        return rows.size() >= batchSize;
+    }
+
+    void flush() {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+        inserted += rows.size();
+        rows.clear();
+    }
+
+    long getInserted() {
+        return inserted;
+    }
+}
@@ -0,0 +1,61 @@
+package com.snsapi.seed;
+
+// Tập long dạng bảng băm địa chỉ mở (dò tuyến tính), không boxing: mỗi phần tử tốn 8-16 byte thay vì vài chục
+// byte của một Long trong HashSet. 0 đánh dấu ô trống nên không được thêm vào.
+class LongHashSet {
+    private long[] slots;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        slots = new long[Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1)];
+    }
+
+    // true nếu value chưa có.
+    boolean add(long value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("0 là giá trị dành cho ô trống.");
+        }
+        if ((size + 1) * 2 > slots.length) {
+            grow();
+        }
+        if (!insert(slots, value)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] larger = new long[slots.length * 2];
+        for (long value : slots) {
+            if (value != 0) {
+                insert(larger, value);
+            }
+        }
+        slots = larger;
+    }
+
+    private static boolean insert(long[] table, long value) {
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        return true;
+    }
+
+    // Trộn bit (bước cuối của SplitMix64) để các khoá (a << 32) | b không dồn vào cùng vùng bảng.
+    private static int mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (value ^ (value >>> 31));
+    }
+}
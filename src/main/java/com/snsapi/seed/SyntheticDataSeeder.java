@@ -0,0 +1,396 @@
+package com.snsapi.seed;
+
+import com.snsapi.comment.CommentPath;
+import com.snsapi.config.IdGeneratorAligner;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Sinh dữ liệu giả lập cho kiểm thử tải, ghi thẳng bằng JDBC batch vào datasource hiện tại (H2 hoặc MySQL).
+// Chạy khi khởi động với --seed; chạy trước các runner dựng chỉ mục, nên kèm --reindex-posts --reindex-users
+// nếu chỉ mục đã có dữ liệu. Cùng seed.random-seed, seed.epoch và cấu hình cho cùng một bộ dữ liệu; mọi thời điểm
+// được tính lùi từ seed.epoch chứ không từ giờ chạy.
+// - Bậc bạn bè theo luật luỹ thừa (mô hình Chung-Lu): người dùng có trọng số (hạng)^(-1/(α-1)).
+// - seed.viral-posts bài nhận lượt thích từ seed.viral-reach phần người dùng và nhiều bình luận.
+// - seed.reply-chains chuỗi trả lời lồng sâu seed.reply-chain-depth tầng.
+// Id là tương đối: mỗi bảng được đánh id tiếp sau MAX(id) hiện có rồi đồng bộ lại bảng id_generator
+// (IdGeneratorAligner). Trên database trống id lặp lại y hệt; trên database đã có dữ liệu, cùng bộ dữ liệu được
+// chèn với id dịch đi một khoảng bằng MAX(id) của từng bảng.
+// like_count / comment_count được ghi đúng ngay lúc chèn. Với MySQL, rewriteBatchedStatements=true (application.properties)
+// gộp mỗi batch thành một INSERT nhiều dòng.
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class SyntheticDataSeeder implements ApplicationRunner {
+    private static final String[] FAMILY_NAMES = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ",
+            "Đặng", "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"};
+    private static final String[] MIDDLE_NAMES = {"Văn", "Thị", "Hữu", "Đức", "Minh", "Ngọc", "Thanh", "Quốc", "Gia",
+            "Thu", "Hoài", "Xuân"};
+    private static final String[] GIVEN_NAMES = {"An", "Bình", "Châu", "Dũng", "Giang", "Hà", "Hải", "Hiền", "Hoa", "Hùng",
+            "Khoa", "Lan", "Linh", "Long", "Mai", "Nam", "Nga", "Phong", "Phúc", "Quân", "Sơn", "Tâm", "Thảo", "Trang",
+            "Trung", "Tuấn", "Vy", "Yến"};
+    private static final String[] WORDS = {"hôm", "nay", "trời", "đẹp", "quá", "đi", "chơi", "cà", "phê", "với", "bạn",
+            "bè", "công", "việc", "mới", "học", "lập", "trình", "java", "spring", "du", "lịch", "Đà", "Lạt", "biển",
+            "ăn", "phở", "bún", "chả", "xem", "phim", "bóng", "đá", "mưa", "nắng", "vui", "buồn", "cuối", "tuần"};
+    private static final String[] CITIES = {"Hà Nội", "Hồ Chí Minh", "Đà Nẵng", "Huế", "Hải Phòng", "Cần Thơ", "Nha Trang"};
+    private static final String[] VISIBILITIES = {"PUBLIC", "FRIENDS_ONLY", "PRIVATE"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final IdGeneratorAligner idGeneratorAligner;
+
+    @Value("${seed.users:10000}")
+    private int userCount;
+
+    @Value("${seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${seed.friends-per-user:20}")
+    private double friendsPerUser;
+
+    @Value("${seed.degree-exponent:2.5}")
+    private double degreeExponent;
+
+    @Value("${seed.posts-per-user:5}")
+    private double postsPerUser;
+
+    @Value("${seed.likes-per-post:8}")
+    private double likesPerPost;
+
+    @Value("${seed.comments-per-post:3}")
+    private double commentsPerPost;
+
+    @Value("${seed.reply-rate:0.3}")
+    private double replyRate;
+
+    @Value("${seed.media-rate:0.3}")
+    private double mediaRate;
+
+    @Value("${seed.viral-posts:10}")
+    private int viralPosts;
+
+    @Value("${seed.viral-reach:0.2}")
+    private double viralReach;
+
+    @Value("${seed.reply-chains:5}")
+    private int replyChains;
+
+    @Value("${seed.reply-chain-depth:100}")
+    private int replyChainDepth;
+
+    @Value("${seed.notification-rate:0.2}")
+    private double notificationRate;
+
+    @Value("${seed.days:90}")
+    private int days;
+
+    @Value("${seed.epoch:2024-01-01T00:00:00Z}")
+    private String epoch;
+
+    @Value("${seed.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${seed.password:123456789}")
+    private String password;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("seed")) {
+            seed();
+        }
+    }
+
+    public void seed() {
+        long started = System.currentTimeMillis();
+        Random random = new Random(randomSeed);
+        long now = Instant.parse(epoch).toEpochMilli();
+        Tables tables = new Tables();
+        tables.friends.startIdsAfter(maxId("friend"));
+        tables.media.startIdsAfter(maxId("media"));
+        tables.notifications.startIdsAfter(maxId("notification"));
+
+        int userBase = maxId("users");
+        double[] weights = powerLawWeights(random);
+        WeightedSampler byActivity = new WeightedSampler(weights);
+        insertUsers(tables, userBase, random, now);
+        insertFriendships(tables, userBase, byActivity, random);
+
+        int postBase = maxId("post");
+        int commentBase = maxId("comment");
+        insertPosts(tables, userBase, postBase, commentBase, byActivity, random, now);
+        tables.flush();
+        idGeneratorAligner.align();
+
+        log.info("Seeded {} users, {} friend rows, {} posts, {} media, {} comments, {} post likes, {} comment likes, " +
+                        "{} notifications in {} ms",
+                tables.users.getInserted(), tables.friends.getInserted(), tables.posts.getInserted(),
+                tables.media.getInserted(), tables.comments.getInserted(), tables.postLikes.getInserted(),
+                tables.commentLikes.getInserted(), tables.notifications.getInserted(),
+                System.currentTimeMillis() - started);
+    }
+
+    // Trọng số (hạng)^(-1/(α-1)) trên một hoán vị ngẫu nhiên của người dùng; bậc kỳ vọng tỉ lệ với trọng số.
+    private double[] powerLawWeights(Random random) {
+        double[] weights = new double[userCount];
+        double exponent = -1.0 / (degreeExponent - 1.0);
+        for (int i = 0; i < userCount; i++) {
+            weights[i] = Math.pow(i + 1, exponent);
+        }
+        for (int i = userCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double swap = weights[i];
+            weights[i] = weights[j];
+            weights[j] = swap;
+        }
+        return weights;
+    }
+
+    private void insertUsers(Tables tables, int userBase, Random random, long now) {
+        String encodedPassword = passwordEncoder.encode(password);
+        LocalDate today = LocalDate.ofInstant(Instant.ofEpochMilli(now), ZoneOffset.UTC);
+        for (int i = 0; i < userCount; i++) {
+            int id = userBase + 1 + i;
+            LocalDate created = today.minusDays(random.nextInt(Math.max(1, days * 4)));
+            tables.users.add(id, "seed" + id + "@sns.test", encodedPassword, randomName(random),
+                    random.nextBoolean() ? "Male" : "Female", "anh-ech-meme-hai-huoc_102044545.jpg", false,
+                    String.format("09%08d", random.nextInt(100_000_000)), true, randomText(random, 8),
+                    LocalDate.of(1970 + random.nextInt(40), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                    CITIES[random.nextInt(CITIES.length)], created, new Timestamp(now), "PUBLIC");
+            tables.roles.add(id, "ROLE_USER");
+            tables.flushIfFull();
+        }
+        tables.flush();
+    }
+
+    // Mô hình Chung-Lu: mỗi cạnh chọn hai đầu theo trọng số, nên bậc của người dùng tỉ lệ với trọng số của họ.
+    // Quan hệ đã chấp nhận được lưu hai chiều như acceptFriend; bỏ vòng lặp và cạnh trùng.
+    private void insertFriendships(Tables tables, int userBase, WeightedSampler byActivity, Random random) {
+        long target = Math.round(userCount * friendsPerUser / 2);
+        long maxAttempts = target * 4;
+        LongHashSet edges = new LongHashSet((int) Math.min(target, Integer.MAX_VALUE / 4));
+        for (long attempt = 0; attempt < maxAttempts && edges.size() < target; attempt++) {
+            int a = byActivity.next(random);
+            int b = byActivity.next(random);
+            if (a == b) {
+                continue;
+            }
+            long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+            if (!edges.add(key)) {
+                continue;
+            }
+            tables.friends.addWithNextId(userBase + 1 + a, userBase + 1 + b, "ACCEPTED");
+            tables.friends.addWithNextId(userBase + 1 + b, userBase + 1 + a, "ACCEPTED");
+            tables.flushIfFull();
+        }
+        tables.flush();
+    }
+
+    private void insertPosts(Tables tables, int userBase, int postBase, int commentBase,
+                             WeightedSampler byActivity, Random random, long now) {
+        int[] postsByUser = new int[userCount];
+        int totalPosts = 0;
+        for (int i = 0; i < userCount; i++) {
+            postsByUser[i] = geometric(random, postsPerUser);
+            totalPosts += postsByUser[i];
+        }
+        Set<Integer> viral = pickIndexes(random, totalPosts, viralPosts);
+        Set<Integer> chained = pickIndexes(random, totalPosts, replyChains);
+
+        long windowMillis = days * 86_400_000L;
+        int postIndex = 0;
+        int[] nextCommentId = {commentBase + 1};
+        for (int author = 0; author < userCount; author++) {
+            int authorId = userBase + 1 + author;
+            for (int k = 0; k < postsByUser[author]; k++, postIndex++) {
+                int postId = postBase + 1 + postIndex;
+                long createdAt = now - (long) (random.nextDouble() * windowMillis);
+                boolean isViral = viral.contains(postIndex);
+
+                int likeTarget = isViral ? (int) Math.round(userCount * viralReach) : geometric(random, likesPerPost);
+                Set<Integer> likers = sampleDistinct(byActivity, random, likeTarget, author);
+                for (int liker : likers) {
+                    tables.postLikes.add(postId, userBase + 1 + liker);
+                    if (random.nextDouble() < notificationRate) {
+                        tables.notifications.addWithNextId(authorId, userBase + 1 + liker, "đã thích bài viết của bạn",
+                                "LIKE_POST", postId, null, random.nextBoolean(), new Timestamp(createdAt + 60_000));
+                    }
+                }
+
+                int commentCount = isViral ? geometric(random, commentsPerPost * 100) : geometric(random, commentsPerPost);
+                List<int[]> comments = new ArrayList<>();
+                List<String> paths = new ArrayList<>();
+                for (int c = 0; c < commentCount; c++) {
+                    int parentIndex = !comments.isEmpty() && random.nextDouble() < replyRate
+                            ? random.nextInt(comments.size()) : -1;
+                    addComment(tables, comments, paths, parentIndex, postId, authorId, userBase, nextCommentId,
+                            byActivity, random, createdAt);
+                }
+                if (chained.contains(postIndex)) {
+                    for (int depth = 0; depth < replyChainDepth; depth++) {
+                        addComment(tables, comments, paths, comments.isEmpty() ? -1 : comments.size() - 1, postId,
+                                authorId, userBase, nextCommentId, byActivity, random, createdAt);
+                    }
+                }
+
+                if (random.nextDouble() < mediaRate) {
+                    int mediaCount = 1 + random.nextInt(4);
+                    for (int m = 0; m < mediaCount; m++) {
+                        tables.media.addWithNextId(postId, "image/jpeg", "seed-" + postId + "-" + m + ".jpg", false);
+                    }
+                }
+
+                tables.posts.add(postId, authorId, randomText(random, 12 + random.nextInt(30)),
+                        VISIBILITIES[visibilityIndex(random)], likers.size(), 0, comments.size(),
+                        new Timestamp(createdAt), new Timestamp(createdAt));
+                tables.flushIfFull();
+            }
+        }
+    }
+
+    // Thêm một bình luận (trả lời bình luận thứ parentIndex khi >= 0) cùng lượt thích và thông báo của nó.
+    // Mỗi phần tử comments là {id, userId}; paths[i] là path của comments[i].
+    private void addComment(Tables tables, List<int[]> comments, List<String> paths, int parentIndex, int postId,
+                            int postAuthorId, int userBase, int[] nextCommentId, WeightedSampler byActivity,
+                            Random random, long postCreatedAt) {
+        int id = nextCommentId[0]++;
+        int author = byActivity.next(random);
+        int userId = userBase + 1 + author;
+        String parentPath = parentIndex >= 0 ? CommentPath.replyParent(paths.get(parentIndex)) : null;
+        Integer parentId = parentPath != null ? CommentPath.lastId(parentPath) : null;
+        String path = CommentPath.of(parentPath, id);
+        int recipientId = parentIndex >= 0 ? comments.get(parentIndex)[1] : postAuthorId;
+        Timestamp createdAt = new Timestamp(postCreatedAt + (comments.size() + 1) * 60_000L);
+
+        Set<Integer> likers = sampleDistinct(byActivity, random, geometric(random, 1), author);
+        for (int liker : likers) {
+            tables.commentLikes.add(id, userBase + 1 + liker);
+        }
+        tables.comments.add(id, postId, userId, randomText(random, 4 + random.nextInt(15)), parentId, path,
+                CommentPath.depthOf(path), likers.size(), 0, createdAt, createdAt);
+        if (recipientId != userId && random.nextDouble() < notificationRate) {
+            tables.notifications.addWithNextId(recipientId, userId,
+                    parentId != null ? "đã trả lời bình luận của bạn" : "đã bình luận bài viết của bạn",
+                    parentId != null ? "REPLY_COMMENT" : "COMMENT_POST", postId, id, random.nextBoolean(), createdAt);
+        }
+        comments.add(new int[]{id, userId});
+        paths.add(path);
+    }
+
+    // Tối đa count người dùng khác nhau theo trọng số, không gồm excluded. Giới hạn ở một nửa số người dùng
+    // để lấy mẫu loại trừ vẫn nhanh.
+    private Set<Integer> sampleDistinct(WeightedSampler byActivity, Random random, int count, int excluded) {
+        int limit = Math.min(count, userCount / 2);
+        Set<Integer> picked = new HashSet<>();
+        long attempts = 0;
+        while (picked.size() < limit && attempts++ < limit * 20L) {
+            int user = byActivity.next(random);
+            if (user != excluded) {
+                picked.add(user);
+            }
+        }
+        return picked;
+    }
+
+    private static Set<Integer> pickIndexes(Random random, int bound, int count) {
+        Set<Integer> picked = new HashSet<>();
+        while (bound > 0 && picked.size() < Math.min(count, bound)) {
+            picked.add(random.nextInt(bound));
+        }
+        return picked;
+    }
+
+    // Phân phối hình học với kỳ vọng mean: đa số nhỏ, đuôi dài.
+    private static int geometric(Random random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double p = 1.0 / (mean + 1.0);
+        return (int) Math.floor(Math.log(1.0 - random.nextDouble()) / Math.log(1.0 - p));
+    }
+
+    private static int visibilityIndex(Random random) {
+        double roll = random.nextDouble();
+        return roll < 0.8 ? 0 : roll < 0.95 ? 1 : 2;
+    }
+
+    private static String randomName(Random random) {
+        return FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)] + " "
+                + MIDDLE_NAMES[random.nextInt(MIDDLE_NAMES.length)] + " "
+                + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+    }
+
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.length() > 255 ? text.substring(0, 255) : text.toString();
+    }
+
+    private int maxId(String table) {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Integer.class);
+        return maxId != null ? maxId : 0;
+    }
+
+    // Các bảng đích, flush theo thứ tự khoá ngoại: bảng cha trước bảng con.
+    private class Tables {
+        private final BatchInserter users = inserter("INSERT INTO users (id, email, password, name, gender, profile_picture, " +
+                "avatar_variants_ready, phone, active, biography, birthday, address, creation_date, updated_at, status_friend) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        private final BatchInserter roles = inserter("INSERT INTO user_roles (user_id, roles) VALUES (?, ?)");
+        private final BatchInserter friends = inserter("INSERT INTO friend (id, user_id, friend_id, status) VALUES (?, ?, ?, ?)");
+        private final BatchInserter posts = inserter("INSERT INTO post (id, user_id, content, visibility, like_count, " +
+                "like_version, comment_count, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        private final BatchInserter media = inserter("INSERT INTO media (id, post_id, media_type, file_name, variants_ready) " +
+                "VALUES (?, ?, ?, ?, ?)");
+        private final BatchInserter comments = inserter("INSERT INTO comment (id, post_id, user_id, content, parent_id, " +
+                "path, depth, like_count, like_version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        private final BatchInserter postLikes = inserter("INSERT INTO post_likes (post_id, user_id) VALUES (?, ?)");
+        private final BatchInserter commentLikes = inserter("INSERT INTO comment_likes (comment_id, user_id) VALUES (?, ?)");
+        private final BatchInserter notifications = inserter("INSERT INTO notification (id, recipient_id, sender_id, " +
+                "message, notification_type, post_id, comment_id, is_read, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+
+        private final BatchInserter[] inFlushOrder = {users, roles, friends, posts, media, comments, postLikes,
+                commentLikes, notifications};
+
+        private BatchInserter inserter(String sql) {
+            return new BatchInserter(jdbcTemplate, sql, batchSize);
+        }
+
+        void flushIfFull() {
+            for (BatchInserter inserter : inFlushOrder) {
+                if (inserter.isFull()) {
+                    flush();
+                    return;
+                }
+            }
+        }
+
+        void flush() {
+            for (BatchInserter inserter : inFlushOrder) {
+                inserter.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.snsapi.seed;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Chọn chỉ số i với xác suất tỉ lệ weights[i]: tìm nhị phân trên mảng tổng tích luỹ, O(log n) mỗi lần.
+class WeightedSampler {
+    private final double[] cumulative;
+
+    WeightedSampler(double[] weights) {
+        cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+    }
+
+    int next(Random random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        index = index >= 0 ? index + 1 : -index - 1;
+        return Math.min(index, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,28 @@
+package com.snsapi.timeline;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+public class InMemoryTimelineStore implements TimelineStore {
+    private final ConcurrentMap<Integer, TimelineRingBuffer> timelines = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public InMemoryTimelineStore(@Value("${timeline.capacity:500}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void push(int userId, int postId, long createdAt) {
+        timelines.computeIfAbsent(userId, id -> new TimelineRingBuffer(capacity)).add(postId, createdAt);
+    }
+
+    @Override
+    public int[] slice(int userId, long notAfter, int limit) {
+        TimelineRingBuffer timeline = timelines.get(userId);
+        return timeline != null ? timeline.slice(notAfter, limit) : new int[0];
+    }
+}
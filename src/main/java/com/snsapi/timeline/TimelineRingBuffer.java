@@ -0,0 +1,51 @@
+package com.snsapi.timeline;
+
+import java.util.Arrays;
+
+// Các bài viết mới nhất của một timeline: id cùng created_at (mili giây epoch).
+public class TimelineRingBuffer {
+    private final int[] postIds;
+    private final long[] createdAts;
+    private int head;
+    private int size;
+
+    public TimelineRingBuffer(int capacity) {
+        this.postIds = new int[capacity];
+        this.createdAts = new long[capacity];
+    }
+
+    public synchronized void add(int postId, long createdAt) {
+        postIds[head] = postId;
+        createdAts[head] = createdAt;
+        head = (head + 1) % postIds.length;
+        if (size < postIds.length) {
+            size++;
+        }
+    }
+
+    public synchronized int[] slice(long notAfter, int limit) {
+        int[] ids = new int[size];
+        long[] times = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int index = (head - 1 - i + postIds.length) % postIds.length;
+            if (createdAts[index] <= notAfter) {
+                // Sắp xếp chèn theo (created_at, id) giảm dần. Các bài được đẩy vào gần như theo thứ tự thời gian,
+                // fan-out song song chỉ đảo vài phần tử, nên mỗi lần chèn chỉ dời rất ít.
+                int j = count++;
+                while (j > 0 && isNewer(createdAts[index], postIds[index], times[j - 1], ids[j - 1])) {
+                    ids[j] = ids[j - 1];
+                    times[j] = times[j - 1];
+                    j--;
+                }
+                ids[j] = postIds[index];
+                times[j] = createdAts[index];
+            }
+        }
+        return Arrays.copyOf(ids, Math.min(limit, count));
+    }
+
+    private static boolean isNewer(long createdAt, int postId, long otherCreatedAt, int otherPostId) {
+        return createdAt > otherCreatedAt || (createdAt == otherCreatedAt && postId > otherPostId);
+    }
+}
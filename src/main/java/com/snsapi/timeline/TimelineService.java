@@ -0,0 +1,166 @@
+package com.snsapi.timeline;
+
+import com.snsapi.friend.AddFriendService;
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.post.Post;
+import com.snsapi.post.PostCursor;
+import com.snsapi.post.PostRepository;
+import com.snsapi.post.PostService;
+import com.snsapi.utils.AfterCommit;
+import com.snsapi.utils.CursorPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Bảng tin bạn bè. Khi bật timeline.fanout.enabled, bài mới được đẩy vào timeline của từng người bạn lúc đăng (push),
+// đọc bảng tin chỉ còn là cắt một đoạn id rồi nạp bài theo lô. Khi tắt, hoặc khi người đọc có quá nhiều bạn,
+// bảng tin được truy vấn trực tiếp từ database (pull). Cả hai cách đều phân trang theo (created_at, id) như các feed khác.
+@Service
+@RequiredArgsConstructor
+public class TimelineService {
+    private static final Comparator<Post> NEWEST_FIRST =
+            Comparator.comparing(Post::getCreatedAt).thenComparing(Post::getId).reversed();
+
+    private final TimelineStore timelineStore;
+    private final AddFriendService addFriendService;
+    private final PostRepository postRepository;
+
+    // Tác giả có nhiều bạn hơn ngưỡng fan-out: bài của họ không được đẩy đi mà người đọc kéo trực tiếp.
+    private final Set<Integer> pullAuthors = ConcurrentHashMap.newKeySet();
+
+    @Value("${timeline.fanout.enabled:false}")
+    private boolean fanoutEnabled;
+
+    @Value("${timeline.fanout.max-friends:1000}")
+    private int maxFanoutFriends;
+
+    public void onPostCreated(Post post) {
+        if (!fanoutEnabled) {
+            return;
+        }
+        int authorId = post.getUser().getId();
+        int postId = post.getId();
+        long createdAt = epochMillis(post.getCreatedAt());
+        Post.VisibilityEnum visibility = post.getVisibility();
+        AfterCommit.run(() -> fanOut(authorId, postId, createdAt, visibility));
+    }
+
+    private void fanOut(int authorId, int postId, long createdAt, Post.VisibilityEnum visibility) {
+        timelineStore.push(authorId, postId, createdAt);
+        if (visibility == Post.VisibilityEnum.PRIVATE) {
+            return;
+        }
+        FriendIdSet friends = addFriendService.findFriendIdSet(authorId);
+        if (friends.size() > maxFanoutFriends) {
+            pullAuthors.add(authorId);
+            return;
+        }
+        for (int friendId : friends.toArray()) {
+            timelineStore.push(friendId, postId, createdAt);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Post> getFriendFeed(Integer viewerId, String cursor, int size) {
+        int pageSize = PostService.clampPageSize(size);
+        PostCursor after = cursor == null || cursor.isBlank() ? null : PostCursor.decode(cursor);
+        FriendIdSet friends = addFriendService.findFriendIdSet(viewerId);
+
+        List<Post> posts;
+        if (!fanoutEnabled || friends.size() > maxFanoutFriends) {
+            posts = pullFriendFeed(viewerId, friends, after, pageSize + 1);
+        } else {
+            posts = readFanoutFeed(viewerId, friends, after, pageSize + 1);
+        }
+
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = new ArrayList<>(posts.subList(0, pageSize));
+            nextCursor = PostCursor.of(posts.get(pageSize - 1)).encode();
+        }
+        return new CursorPage<>(posts, nextCursor);
+    }
+
+    private List<Post> readFanoutFeed(int viewerId, FriendIdSet friends, PostCursor after, int limit) {
+        long notAfter = after != null ? epochMillis(after.getCreatedAt()) : Long.MAX_VALUE;
+        // Lấy dư một bài: bài đó chỉ dùng để biết đoạn cắt dừng ở mili giây nào (xem bên dưới).
+        int[] slice = timelineStore.slice(viewerId, notAfter, limit + 1);
+        // Timeline chưa giữ đủ một trang cho đoạn này (vừa khởi động lại, hoặc đã cuộn quá sức chứa): dùng pull.
+        if (slice.length <= limit) {
+            return pullFriendFeed(viewerId, friends, after, limit);
+        }
+
+        Set<Integer> sliceIds = new HashSet<>();
+        for (int postId : slice) {
+            sliceIds.add(postId);
+        }
+        Set<Integer> ids = new HashSet<>(sliceIds);
+        List<Integer> pullFriends = pullAuthors.stream()
+                .filter(friends::contains)
+                .collect(Collectors.toList());
+        if (!pullFriends.isEmpty()) {
+            PageRequest page = PageRequest.of(0, limit);
+            ids.addAll(after == null
+                    ? postRepository.findFeedIdsByAuthorsFirstPage(pullFriends, page)
+                    : postRepository.findFeedIdsByAuthorsPageAfter(pullFriends, after.getCreatedAt(), after.getId(), page));
+        }
+
+        List<Post> posts = hydrate(ids, viewerId, friends, after);
+        // Store chỉ so created_at tới mili giây: bài cùng mili giây với bài cũ nhất của đoạn cắt có thể đã bị bỏ
+        // ngoài đoạn, nên chỉ giữ bài mới hơn mili giây đó; phần còn lại của trang do pull nối tiếp.
+        long oldestInSlice = posts.stream()
+                .filter(post -> sliceIds.contains(post.getId()))
+                .mapToLong(post -> epochMillis(post.getCreatedAt()))
+                .min()
+                .orElse(Long.MAX_VALUE);
+        posts.removeIf(post -> epochMillis(post.getCreatedAt()) <= oldestInSlice);
+        if (posts.size() > limit) {
+            return new ArrayList<>(posts.subList(0, limit));
+        }
+        if (posts.size() < limit) {
+            PostCursor oldest = posts.isEmpty() ? after : PostCursor.of(posts.get(posts.size() - 1));
+            posts.addAll(pullFriendFeed(viewerId, friends, oldest, limit - posts.size()));
+        }
+        return posts;
+    }
+
+    private List<Post> hydrate(Collection<Integer> ids, int viewerId, FriendIdSet friends, PostCursor after) {
+        return postRepository.findAllById(ids).stream()
+                .filter(post -> post.getUser() != null)
+                .filter(post -> post.getUser().getId() == viewerId
+                        || (post.getVisibility() != Post.VisibilityEnum.PRIVATE && friends.contains(post.getUser().getId())))
+                .filter(post -> after == null || isBefore(post, after))
+                .sorted(NEWEST_FIRST)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private List<Post> pullFriendFeed(int viewerId, FriendIdSet friends, PostCursor after, int limit) {
+        List<Integer> friendIds = friends.toParameterList();
+        PageRequest page = PageRequest.of(0, limit);
+        return new ArrayList<>(after == null
+                ? postRepository.findFriendFeedFirstPage(viewerId, friendIds, page)
+                : postRepository.findFriendFeedPageAfter(viewerId, friendIds, after.getCreatedAt(), after.getId(), page));
+    }
+
+    private static boolean isBefore(Post post, PostCursor after) {
+        int compared = post.getCreatedAt().compareTo(after.getCreatedAt());
+        return compared < 0 || (compared == 0 && post.getId() < after.getId());
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
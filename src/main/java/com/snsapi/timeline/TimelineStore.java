@@ -0,0 +1,12 @@
+package com.snsapi.timeline;
+
+// Nơi lưu timeline đã fan-out của từng người dùng. Bản mặc định nằm trong bộ nhớ (InMemoryTimelineStore);
+// có thể thay bằng Redis hoặc store khác chỉ bằng cách cung cấp một bean khác.
+// Thời điểm tạo bài tính bằng mili giây epoch.
+public interface TimelineStore {
+
+    void push(int userId, int postId, long createdAt);
+
+    // Tối đa limit id bài viết tạo không sau notAfter, theo (created_at, id) mới nhất trước.
+    int[] slice(int userId, long notAfter, int limit);
+}
@@ -0,0 +1,198 @@
+package com.snsapi.trending;
+
+import com.snsapi.post.Post;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Xếp hạng bài viết công khai đang nổi bật theo lượt thích và bình luận giảm dần theo thời gian
+// (nửa đời trending.half-life-hours). Điểm được giữ dưới dạng log: mỗi sự kiện cộng log(w) + t/τ, nên không cần
+// cập nhật lại điểm của mọi bài khi thời gian trôi - thứ tự giữa các bài vẫn đúng. Bảng xếp hạng là skip list
+// sắp theo điểm, đọc top K là O(K).
+// Bỏ thích trừ đúng phần lượt thích đó đã cộng (theo thời điểm thích lưu trong likedAt); lượt thích không còn
+// thời điểm (có từ trước khi khởi động, hoặc đã bị dọn) thì bỏ thích được bỏ qua - phần đó vốn đã gần như tan hết.
+@Service
+public class TrendingService implements ApplicationRunner {
+    // Bài có điểm hiện tại (đã giảm theo thời gian) dưới ngưỡng này bị bỏ khỏi bảng xếp hạng khi dọn dẹp.
+    private static final double PRUNE_BELOW = Math.log(0.05);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double tauSeconds;
+    private final double likeWeight;
+    private final double commentWeight;
+    private final Duration rebuildWindow;
+
+    private final Map<Integer, Double> scores = new ConcurrentHashMap<>();
+    // (postId, userId) -> thời điểm thích, tính bằng giây.
+    private final Map<Long, Double> likedAt = new ConcurrentHashMap<>();
+    private final NavigableSet<Ranked> ranking = new ConcurrentSkipListSet<>(
+            Comparator.comparingDouble(Ranked::getScore).reversed().thenComparingInt(Ranked::getPostId));
+
+    public TrendingService(JdbcTemplate jdbcTemplate,
+                           @Value("${trending.half-life-hours:6}") double halfLifeHours,
+                           @Value("${trending.like-weight:1}") double likeWeight,
+                           @Value("${trending.comment-weight:2}") double commentWeight,
+                           @Value("${trending.rebuild-window-days:7}") int rebuildWindowDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tauSeconds = halfLifeHours * 3600 / Math.log(2);
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+        this.rebuildWindow = Duration.ofDays(rebuildWindowDays);
+    }
+
+    public void onLikeToggled(int postId, int userId, boolean liked, Post.VisibilityEnum visibility) {
+        onLikeToggled(postId, userId, liked, visibility, nowSeconds());
+    }
+
+    public void onCommentAdded(int postId, Post.VisibilityEnum visibility) {
+        onCommentAdded(postId, visibility, nowSeconds());
+    }
+
+    // Bài bị xoá hoặc chuyển khỏi công khai.
+    public void remove(int postId) {
+        scores.computeIfPresent(postId, (id, score) -> {
+            ranking.remove(new Ranked(score, id));
+            return null;
+        });
+    }
+
+    void onLikeToggled(int postId, int userId, boolean liked, Post.VisibilityEnum visibility, double atSeconds) {
+        if (visibility != Post.VisibilityEnum.PUBLIC) {
+            return;
+        }
+        long key = likeKey(postId, userId);
+        if (liked) {
+            likedAt.put(key, atSeconds);
+            record(postId, likeWeight, atSeconds);
+        } else {
+            Double likedAtSeconds = likedAt.remove(key);
+            if (likedAtSeconds != null) {
+                record(postId, -likeWeight, likedAtSeconds);
+            }
+        }
+    }
+
+    void onCommentAdded(int postId, Post.VisibilityEnum visibility, double atSeconds) {
+        if (visibility == Post.VisibilityEnum.PUBLIC) {
+            record(postId, commentWeight, atSeconds);
+        }
+    }
+
+    // Id bài viết theo điểm giảm dần, không trùng: record gỡ rồi thêm lại mục của bài trong lúc đang duyệt,
+    // nên vòng lặp có thể gặp cùng một bài ở cả vị trí cũ lẫn vị trí mới.
+    public List<Integer> topPostIds(int limit) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Ranked ranked : ranking) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            ids.add(ranked.getPostId());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private void record(int postId, double weight, double atSeconds) {
+        double contribution = Math.log(Math.abs(weight)) + atSeconds / tauSeconds;
+        scores.compute(postId, (id, previous) -> {
+            double next;
+            if (previous == null) {
+                next = weight > 0 ? contribution : Double.NEGATIVE_INFINITY;
+            } else if (weight > 0) {
+                next = logAddExp(previous, contribution);
+            } else {
+                next = logSubExp(previous, contribution);
+            }
+            if (previous != null) {
+                ranking.remove(new Ranked(previous, postId));
+            }
+            if (next == Double.NEGATIVE_INFINITY) {
+                return null;
+            }
+            ranking.add(new Ranked(next, postId));
+            return next;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${trending.prune-interval-ms:3600000}")
+    public void prune() {
+        prune(nowSeconds());
+    }
+
+    void prune(double nowSeconds) {
+        double threshold = PRUNE_BELOW + nowSeconds / tauSeconds;
+        // Lượt thích đã tan dưới ngưỡng: bỏ thích sau này không cần trừ gì nữa.
+        likedAt.values().removeIf(at -> Math.log(likeWeight) + at / tauSeconds < threshold);
+        for (Ranked ranked : ranking.descendingSet()) {
+            if (ranked.getScore() >= threshold) {
+                break;
+            }
+            scores.computeIfPresent(ranked.getPostId(), (id, score) -> {
+                if (score >= threshold) {
+                    return score;
+                }
+                ranking.remove(new Ranked(score, id));
+                return null;
+            });
+        }
+    }
+
+    // Dựng lại khi khởi động: lượt thích chưa có thời điểm nên được tính tại thời điểm đăng bài,
+    // bình luận tính tại created_at của chúng. Chỉ xét bài viết và bình luận trong rebuildWindow gần nhất.
+    @Override
+    public void run(ApplicationArguments args) {
+        Timestamp since = new Timestamp(System.currentTimeMillis() - rebuildWindow.toMillis());
+        jdbcTemplate.query("SELECT id, like_count, created_at FROM post " +
+                "WHERE created_at > ? AND visibility = 'PUBLIC' AND like_count > 0", rs -> {
+            record(rs.getInt("id"), likeWeight * rs.getInt("like_count"), rs.getTimestamp("created_at").getTime() / 1000.0);
+        }, since);
+        jdbcTemplate.query("SELECT c.post_id, c.created_at FROM comment c JOIN post p ON p.id = c.post_id " +
+                "WHERE c.created_at > ? AND p.visibility = 'PUBLIC'", rs -> {
+            record(rs.getInt("post_id"), commentWeight, rs.getTimestamp("created_at").getTime() / 1000.0);
+        }, since);
+    }
+
+    private static long likeKey(int postId, int userId) {
+        return ((long) postId << 32) | (userId & 0xffffffffL);
+    }
+
+    private static double logAddExp(double a, double b) {
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+    }
+
+    // log(e^a - e^b); -∞ khi phần bị trừ không nhỏ hơn (bỏ thích lượt thích duy nhất còn lại của bài).
+    private static double logSubExp(double a, double b) {
+        if (b >= a) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return a + Math.log1p(-Math.exp(b - a));
+    }
+
+    private static double nowSeconds() {
+        return System.currentTimeMillis() / 1000.0;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Ranked {
+        private final double score;
+        private final int postId;
+    }
+}
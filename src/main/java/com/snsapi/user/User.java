@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.snsapi.config.IdGeneratorAligner;
 import com.snsapi.friend.AddFriend;
 import com.snsapi.post.Post;
 import jakarta.persistence.*;
@@ -12,11 +13,14 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Data
@@ -24,11 +28,14 @@ import java.util.*;
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
 @Table(name = "users")
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+    @TableGenerator(name = "users_id", table = IdGeneratorAligner.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "users", allocationSize = IdGeneratorAligner.ALLOCATION_SIZE)
     private Integer id;
 
     @Email
@@ -51,6 +58,11 @@ public class User implements UserDetails {
     @JsonProperty("profilePicture")
     private String profilePicture;
 
+    // Bật khi các bản thu nhỏ (ImageVariant.FOR_AVATAR) của profilePicture hiện tại đã được ghi xong.
+    @JsonIgnore
+    @Column(name = "avatar_variants_ready", nullable = false)
+    private boolean avatarVariantsReady;
+
     @JsonProperty("phone")
     @Column(nullable = true)
     private String phone;
@@ -77,6 +89,12 @@ public class User implements UserDetails {
     @Column(nullable = true)
     private LocalDate creationDate;
 
+    // Phiên bản của hồ sơ, dùng cho ETag; không trả ra ngoài.
+    @JsonIgnore
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     List<Post> posts = new ArrayList<>();
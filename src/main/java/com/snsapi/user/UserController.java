@@ -5,9 +5,11 @@ import com.snsapi.exception.UserNotFoundException;
 import com.snsapi.friend.AddFriendService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
@@ -45,9 +47,12 @@ public class UserController {
     }
 
     @GetMapping("api/v1/users/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable int id) {
-        userService.findById(id);
-        return ResponseEntity.ok(userService.findById(id));
+    public ResponseEntity<User> getUserById(@PathVariable int id, WebRequest webRequest) {
+        String eTag = userService.getProfileETag(id);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(userService.findById(id));
     }
 
     @GetMapping("api/v1/me")
@@ -120,9 +125,16 @@ public class UserController {
     }
 
     @GetMapping("/api/v1/users") // GET : /api/v1/users?name=hien
-    public ResponseEntity<?> findFriendsByName(@RequestParam(name = "name", required = false) String name) {
+    public ResponseEntity<?> findFriendsByName(@RequestParam(name = "name", required = false) String name,
+                                               @RequestParam(name = "page", defaultValue = "0") int page,
+                                               @RequestParam(name = "size", defaultValue = "20") int size) {
+        if (name == null || name.isEmpty()) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(userService.streamAllUsers());
+        }
         try {
-            List<FindUserResponse> findFriendsByName = userService.findByName(name);
+            List<FindUserResponse> findFriendsByName = userService.findByName(name, page, size);
             if (findFriendsByName.isEmpty()) {
                 return ResponseEntity.ok("Không tìm thấy người dùng.");
             }
@@ -133,6 +145,21 @@ public class UserController {
         }
     }
 
+    @GetMapping("/api/v1/users/typeahead") // GET : /api/v1/users/typeahead?q=hi
+    public ResponseEntity<List<UserDTO>> typeahead(@RequestParam(name = "q") String query,
+                                                   @RequestParam(name = "limit", defaultValue = "10") int limit,
+                                                   @RequestHeader(value = "Authorization", required = false) String token) {
+        Integer viewerId = null;
+        if (token != null) {
+            try {
+                viewerId = jwtService.getUserIdFromToken(token.startsWith("Bearer") ? token.substring(7) : token);
+            } catch (Exception e) {
+                viewerId = null;
+            }
+        }
+        return ResponseEntity.ok(userService.typeahead(query, viewerId, limit));
+    }
+
     @GetMapping("api/v1/users/{id}/block")
     public ResponseEntity<String> blockUser(@PathVariable int id) {
         userService.updateActive(id);
@@ -140,13 +167,17 @@ public class UserController {
     }
 
     @GetMapping("/api/v1/me/friends")
-    public ResponseEntity<?> getFriends(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getFriends(@RequestHeader("Authorization") String token, WebRequest webRequest) {
         try {
             token = token.startsWith("Bearer") ? token.substring(7) : token;
             int id = jwtService.getUserIdFromToken(token);
+            String eTag = addFriendService.getFriendListETag(id);
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
             List<UserDTO> findAllFriends = addFriendService.findAllFriends(id);
 
-            return ResponseEntity.ok(findAllFriends);
+            return ResponseEntity.ok().eTag(eTag).body(findAllFriends);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body("Lấy danh sách bạn bè thất bại.");
@@ -202,9 +233,11 @@ public class UserController {
     }
 
     @GetMapping("/api/v1/user")
-    public ResponseEntity<?> getUserByUsername(@RequestParam(name = "username", required = false) String username) throws Exception {
+    public ResponseEntity<?> getUserByUsername(@RequestParam(name = "username", required = false) String username,
+                                               @RequestParam(name = "page", defaultValue = "0") int page,
+                                               @RequestParam(name = "size", defaultValue = "20") int size) throws Exception {
             if (username != null) {
-                List<UserDTO> user = userService.findUserByName(username);
+                List<UserDTO> user = userService.findUserByName(username, page, size);
                 return ResponseEntity.ok(user);
             }
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
@@ -1,10 +1,14 @@
 package com.snsapi.user;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.snsapi.media.ImageVariant;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,5 +16,19 @@ import lombok.NoArgsConstructor;
 public class UserDTO {
     private Integer id;
     private String name;
+    // Luôn là ảnh gốc; client nên dùng avatarVariants khi có.
     private String profilePicture;
+    // Tên bản thu nhỏ (avatar, thumbnail) -> URL; null (bỏ khỏi JSON) khi chưa sinh xong.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> avatarVariants;
+
+    public UserDTO(Integer id, String name, String profilePicture) {
+        this(id, name, profilePicture, (Map<String, String>) null);
+    }
+
+    // Dùng trong truy vấn JPQL của bản tóm tắt người dùng (UserRepository.findSummariesByIds).
+    public UserDTO(Integer id, String name, String profilePicture, Boolean avatarVariantsReady) {
+        this(id, name, profilePicture, Boolean.TRUE.equals(avatarVariantsReady) && profilePicture != null
+                ? ImageVariant.urlsOf(ImageVariant.FOR_AVATAR, profilePicture) : null);
+    }
 }
@@ -1,10 +1,14 @@
 package com.snsapi.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,8 +16,6 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
 
-    List<User> findByNameContainingIgnoreCase(@Param("name") String name);
-
     boolean existsByEmail(String email);
 
     // number of user by month of a year
@@ -24,8 +26,22 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 //    @Query(value = "SELECT WEEK(creation_date) as inWeek, COUNT(*) as 'NumberOfUsers' FROM users WHERE YEAR(creation_date) =:year AND MONT(creation_date) = :month GROUP BY WEEK(creation_date)", nativeQuery = true)
 //    List<User> getUserNumberByWeekOfMonthOfYear(@Param("month") int month, @Param("year") int year);
 
-    @Query("SELECT u FROM User u WHERE LOWER(u.name) LIKE LOWER(CONCAT('%' ,:name, '%'))")
-    List<User> findByName(@Param("name") String name);
+    @Query("SELECT new com.snsapi.user.UserDTO(u.id, u.name, u.profilePicture, u.avatarVariantsReady) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserDTO> findSummariesByIds(@Param("ids") Collection<Integer> ids);
+
+    // Không làm gì nếu người dùng đã đổi sang ảnh khác trong lúc bản thu nhỏ đang được sinh.
+    // Cập nhật hàng loạt bỏ qua @LastModifiedDate nên updated_at được đặt tay: ETag của feed, bình luận và hồ sơ
+    // phiên bản hoá tác giả theo cột này, và response bắt đầu có avatarVariants.
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.avatarVariantsReady = true, u.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE u.id = :id AND u.profilePicture = :fileName")
+    int markAvatarVariantsReady(@Param("id") Integer id, @Param("fileName") String fileName);
+
+    // Rỗng khi không có người dùng; phần tử null với hàng cũ chưa có updated_at.
+    @Query("SELECT u.updatedAt FROM User u WHERE u.id = :id")
+    List<LocalDateTime> findUpdatedAtById(@Param("id") Integer id);
 
 }
 
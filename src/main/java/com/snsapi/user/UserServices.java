@@ -1,29 +1,47 @@
 package com.snsapi.user;
 
 import com.snsapi.exception.UserNotFoundException;
+import com.snsapi.friend.AddFriendService;
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.media.ImageVariantPipeline;
+import com.snsapi.media.MediaBlobStore;
+import com.snsapi.post.PostService;
+import com.snsapi.search.TypeaheadIndex;
+import com.snsapi.search.UserSearchIndex;
+import com.snsapi.utils.AfterCommit;
+import com.snsapi.utils.JsonArrayStreamer;
+import com.snsapi.utils.VersionTag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserServices {
+    private static final int MAX_TYPEAHEAD = 20;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    @Value("${upload.image}")
-    private String uploadDir;
+    private final UserSearchIndex userSearchIndex;
+    private final TypeaheadIndex typeaheadIndex;
+    private final AddFriendService addFriendService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final UserSummaryCache userSummaryCache;
+    private final ImageVariantPipeline imageVariantPipeline;
+    private final MediaBlobStore mediaBlobStore;
 
     public Page<User> findAll(Pageable pageable) {
         return userRepository.findAll(pageable);
@@ -35,6 +53,15 @@ public class UserServices {
                 .orElseThrow(() -> new UserNotFoundException(id));
     }
 
+    // ETag của hồ sơ, chỉ từ cột updated_at (cập nhật mỗi lần lưu qua JPA).
+    public String getProfileETag(int id) throws UserNotFoundException {
+        List<LocalDateTime> versions = userRepository.findUpdatedAtById(id);
+        if (versions.isEmpty()) {
+            throw new UserNotFoundException(id);
+        }
+        return new VersionTag().add(id).add(versions.get(0)).toETag();
+    }
+
     public UpdateUserRequest informationUser(User request) {
         return UpdateUserRequest.builder()
                 .name(request.getName())
@@ -64,7 +91,7 @@ public class UserServices {
                 .active(request.getActive() != null ? request.getActive() : true)
                 .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
                 .build();
-        userRepository.save(user);
+        reindex(userRepository.save(user));
     }
 
     public User saveGG(String email) {
@@ -75,10 +102,15 @@ public class UserServices {
                 .active(true)
                 .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
                 .build();
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        reindex(savedUser);
+        return savedUser;
     }
 
 
+    // Một transaction cho cả tham chiếu blob và dòng users: nếu lưu lỗi thì ảnh mới không giữ tham chiếu thừa
+    // và ảnh cũ vẫn giữ tham chiếu của nó (MediaBlobCollector không xoá tệp còn được dùng).
+    @Transactional
     public void update(int id, FormUpdateRequest request) throws UserNotFoundException {
         User user = findById(id);
 
@@ -91,23 +123,43 @@ public class UserServices {
 
         MultipartFile profilePicture = request.getProfilePicture();
         if (profilePicture != null && !profilePicture.isEmpty()) {
-            String fileName = profilePicture.getOriginalFilename();
-            File file = new File(uploadDir + fileName);
             try {
-                profilePicture.transferTo(file);
+                // Ảnh đại diện cũng nằm trong kho định danh theo nội dung; ảnh cũ được bỏ một tham chiếu.
+                String fileName = mediaBlobStore.store(profilePicture).getFileName();
+                mediaBlobStore.release(MediaBlobStore.hashOf(user.getProfilePicture()));
                 user.setProfilePicture(fileName);
+                user.setAvatarVariantsReady(false);
+                // Tóm tắt người dùng (tác giả, người thích) chỉ trả URL bản thu nhỏ sau khi chúng đã được ghi.
+                AfterCommit.run(() -> imageVariantPipeline.submitAvatar(fileName).thenAccept(ready -> {
+                    if (ready && userRepository.markAvatarVariantsReady(id, fileName) > 0) {
+                        userSummaryCache.invalidate(id);
+                    }
+                }));
             } catch (IOException e) {
                 e.printStackTrace();
                 throw new RuntimeException("Error saving file");
             }
         }
 
-        userRepository.save(user);
+        reindex(userRepository.save(user));
+        AfterCommit.run(() -> userSummaryCache.invalidate(id));
     }
 
     public void delete(int id) throws UserNotFoundException {
         findById(id);
         userRepository.deleteById(id);
+        AfterCommit.run(() -> {
+            userSearchIndex.deleteAndRefresh(id);
+            typeaheadIndex.remove(id);
+        });
+    }
+
+    private void reindex(User user) {
+        UserDTO userDTO = convertToUserDTO(user);
+        AfterCommit.run(() -> {
+            userSearchIndex.indexAndRefresh(userDTO);
+            typeaheadIndex.put(userDTO);
+        });
     }
 
     public User updatePassword(int id, String newPassword, String oldPassword) {
@@ -120,33 +172,55 @@ public class UserServices {
         return null;
     }
 
-    public List<FindUserResponse> findByName(String name) throws Exception {
+    // Toàn bộ người dùng (cùng dạng FindUserResponse), ghi thẳng từ con trỏ JDBC ra response.
+    public StreamingResponseBody streamAllUsers() {
+        return jsonArrayStreamer.stream("SELECT id, name, email, active, profile_picture, biography, address " +
+                "FROM users ORDER BY id", (generator, rs) -> {
+            generator.writeNumberField("id", rs.getInt("id"));
+            generator.writeStringField("name", rs.getString("name"));
+            generator.writeStringField("email", rs.getString("email"));
+            generator.writeBooleanField("active", rs.getBoolean("active"));
+            generator.writeStringField("profilePicture", rs.getString("profile_picture"));
+            generator.writeStringField("biography", rs.getString("biography"));
+            generator.writeStringField("address", rs.getString("address"));
+        });
+    }
+
+    public List<FindUserResponse> findByName(String name, int page, int size) throws Exception {
         if (name == null || name.isEmpty()) {
-            List<User> users = userRepository.findAll();
-            return users.stream()
-                    .map(this::convertToFindUserRequest)
-                    .collect(Collectors.toList());
+            return new ArrayList<>();
         } else {
-            List<User> users = userRepository.findByNameContainingIgnoreCase(name);
-            if (users == null || users.isEmpty()) {
+            List<Integer> ids = findUserByName(name, page, size).stream()
+                    .map(UserDTO::getId)
+                    .collect(Collectors.toList());
+            if (ids.isEmpty()) {
                 throw new Exception("User not found");
             }
-            return users.stream()
+            Map<Integer, User> users = userRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(User::getId, user -> user));
+            return ids.stream()
+                    .map(users::get)
+                    .filter(Objects::nonNull)
                     .map(this::convertToFindUserRequest)
                     .collect(Collectors.toList());
         }
     }
 
-    public List<UserDTO> findUserByName (String name) throws IOException {
+    // Kết quả đã xếp hạng từ chỉ mục tên (bỏ dấu, trigram), không truy vấn database.
+    public List<UserDTO> findUserByName(String name, int page, int size) {
         if (name != null) {
-            List<User> userDTOS = userRepository.findByName(name);
-            return userDTOS.stream()
-                    .map(this::convertToUserDTO)
-                    .collect(Collectors.toList());
+            int pageSize = PostService.clampPageSize(size);
+            return userSearchIndex.search(name, Math.max(0, page) * pageSize, pageSize);
         }
         return new ArrayList<>();
     }
 
+    // Gợi ý khi gõ từ bộ nhớ (TypeaheadIndex), bạn bè của người xem đứng trước.
+    public List<UserDTO> typeahead(String query, Integer viewerId, int limit) {
+        FriendIdSet friends = viewerId != null ? addFriendService.findFriendIdSet(viewerId) : FriendIdSet.empty();
+        return typeaheadIndex.suggest(query, friends, Math.max(1, Math.min(limit, MAX_TYPEAHEAD)));
+    }
+
     private FindUserResponse convertToFindUserRequest(User user) {
         return FindUserResponse.builder()
                 .id(user.getId())
@@ -171,6 +245,7 @@ public class UserServices {
         if (user.isPresent()) {
             User userEntity = user.get();
             userEntity.setActive(!userEntity.getActive());
+            AfterCommit.run(() -> userSummaryCache.invalidate(id));
            return userRepository.save(userEntity);
         } else {
             throw new UserNotFoundException(id);
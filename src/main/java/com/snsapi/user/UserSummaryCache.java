@@ -0,0 +1,74 @@
+package com.snsapi.user;
+
+import com.snsapi.utils.GenerationalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bộ nhớ đệm LRU có giới hạn (user.summary-cache.max-users) cho UserDTO(id, name, profilePicture, avatarVariants) dùng khi
+// dựng tác giả và người thích. getAll nạp mọi id còn thiếu bằng một câu IN; UserServices xoá mục sau khi sửa hồ sơ.
+// Bản lưu trong cache không bao giờ được trả ra: mỗi lần gọi nhận bản sao riêng (avatarVariants là map bất biến).
+@Component
+public class UserSummaryCache {
+    private final UserRepository userRepository;
+    private final GenerationalCache<Integer, UserDTO> cache;
+
+    public UserSummaryCache(UserRepository userRepository,
+                            @Value("${user.summary-cache.max-users:50000}") int maxUsers) {
+        this.userRepository = userRepository;
+        this.cache = new GenerationalCache<>(maxUsers);
+    }
+
+    // null nếu người dùng không tồn tại.
+    public UserDTO get(int userId) {
+        return getAll(List.of(userId)).get(userId);
+    }
+
+    // Người dùng không tồn tại không có trong map.
+    public Map<Integer, UserDTO> getAll(Collection<Integer> userIds) {
+        Map<Integer, UserDTO> summaries = new HashMap<>();
+        // id còn thiếu -> thế hệ của stripe tại thời điểm trước khi truy vấn.
+        Map<Integer, Long> misses = new LinkedHashMap<>();
+        for (Integer userId : userIds) {
+            if (userId == null || summaries.containsKey(userId) || misses.containsKey(userId)) {
+                continue;
+            }
+            UserDTO cached = cache.getIfPresent(userId);
+            if (cached != null) {
+                summaries.put(userId, copyOf(cached));
+            } else {
+                misses.put(userId, cache.generation(userId));
+            }
+        }
+        if (misses.isEmpty()) {
+            return summaries;
+        }
+
+        for (UserDTO user : userRepository.findSummariesByIds(misses.keySet())) {
+            UserDTO stored = frozenCopyOf(user);
+            cache.putIfCurrent(user.getId(), stored, misses.get(user.getId()));
+            summaries.put(user.getId(), copyOf(stored));
+        }
+        return summaries;
+    }
+
+    public void invalidate(int userId) {
+        cache.invalidate(userId);
+    }
+
+    // Bản để lưu: avatarVariants bất biến (giữ thứ tự) nên các bản sao dùng chung được.
+    private static UserDTO frozenCopyOf(UserDTO user) {
+        return new UserDTO(user.getId(), user.getName(), user.getProfilePicture(), user.getAvatarVariants() != null
+                ? Collections.unmodifiableMap(new LinkedHashMap<>(user.getAvatarVariants())) : null);
+    }
+
+    private static UserDTO copyOf(UserDTO stored) {
+        return new UserDTO(stored.getId(), stored.getName(), stored.getProfilePicture(), stored.getAvatarVariants());
+    }
+}
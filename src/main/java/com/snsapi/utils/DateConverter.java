@@ -1,5 +1,6 @@
 package com.snsapi.utils;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -7,4 +8,8 @@ public class DateConverter {
     public static String localDateTimeToDateWithSlash(LocalDateTime localDateTime) {
         return DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy").format(localDateTime);
     }
+
+    public static String timestampToDateWithSlash(Timestamp timestamp) {
+        return timestamp != null ? localDateTimeToDateWithSlash(timestamp.toLocalDateTime()) : null;
+    }
 }
@@ -0,0 +1,58 @@
+package com.snsapi.utils;
+
+import com.snsapi.exception.InvalidRequestParameterException;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+// Các trường client yêu cầu qua ?fields=id,content,likes (và ?include=media,comments cho quan hệ lồng nhau;
+// hai tham số được gộp lại). Không truyền cả hai nghĩa là lấy tất cả, giống hành vi trước đây.
+public final class FieldSelection {
+    private static final FieldSelection ALL = new FieldSelection(null);
+
+    // null nghĩa là mọi trường.
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public static FieldSelection all() {
+        return ALL;
+    }
+
+    public static FieldSelection parse(String fields, String include, Set<String> allowed) {
+        if (isBlank(fields) && isBlank(include)) {
+            return ALL;
+        }
+        Set<String> selected = new HashSet<>();
+        addAll(selected, fields, allowed);
+        addAll(selected, include, allowed);
+        return new FieldSelection(Collections.unmodifiableSet(selected));
+    }
+
+    public boolean has(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    private static void addAll(Set<String> selected, String value, Set<String> allowed) {
+        if (isBlank(value)) {
+            return;
+        }
+        for (String part : value.split(",")) {
+            String field = part.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(field)) {
+                throw new InvalidRequestParameterException("Trường không hợp lệ: " + field);
+            }
+            selected.add(field);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,71 @@
+package com.snsapi.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// Bộ nhớ đệm LRU có giới hạn số mục, dùng chung cho các cache đọc-từ-database (FriendSetCache, LikedByMeResolver,
+// UserSummaryCache). Mỗi khoá thuộc một trong GENERATION_STRIPES stripe có bộ đếm thế hệ: nơi gọi đọc generation(key)
+// trước khi nạp từ database, và bản nạp chỉ được lưu nếu không có invalidate/update nào cho stripe đó xen giữa.
+// Kiểm tra thế hệ và ghi diễn ra dưới cùng một khoá với invalidate, nên bản cũ không thể lọt vào sau lần xoá.
+public class GenerationalCache<K, V> {
+    private static final int GENERATION_STRIPES = 64;
+
+    private final Map<K, V> entries;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public GenerationalCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // null nếu chưa có.
+    public synchronized V getIfPresent(K key) {
+        return entries.get(key);
+    }
+
+    public long generation(K key) {
+        return generations.get(slot(key));
+    }
+
+    // Lưu value nếu stripe của key vẫn ở thế hệ đã đọc trước khi nạp; trả về bản đang được lưu sau lệnh này,
+    // hoặc value nếu nó không được lưu.
+    public synchronized V putIfCurrent(K key, V value, long generation) {
+        if (generations.get(slot(key)) != generation) {
+            return value;
+        }
+        V existing = entries.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    // Bản đang lưu, hoặc nạp bằng loader rồi lưu nếu không có invalidate nào xen giữa. loader chạy ngoài khoá.
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = generation(key);
+        return putIfCurrent(key, loader.apply(key), generation);
+    }
+
+    public synchronized void invalidate(K key) {
+        generations.incrementAndGet(slot(key));
+        entries.remove(key);
+    }
+
+    // Thay mục đang lưu bằng update(value) (null thì xoá) và tăng thế hệ, để bản đang được nạp song song không ghi đè.
+    public synchronized void update(K key, UnaryOperator<V> update) {
+        generations.incrementAndGet(slot(key));
+        entries.computeIfPresent(key, (k, value) -> update.apply(value));
+    }
+
+    private static int slot(Object key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+}
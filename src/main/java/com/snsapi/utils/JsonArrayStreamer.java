@@ -0,0 +1,77 @@
+package com.snsapi.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Ghi kết quả một câu SQL thành mảng JSON ngay trong lúc đọc con trỏ JDBC, từng dòng một,
+// nên bộ nhớ không phụ thuộc số dòng. Với MySQL cần stream.fetch-size=-2147483648 (hoặc useCursorFetch=true)
+// để driver không nạp hết kết quả trước.
+@Component
+public class JsonArrayStreamer {
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public JsonArrayStreamer(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                             @Value("${stream.fetch-size:1000}") int fetchSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    public StreamingResponseBody stream(String sql, RowWriter rowWriter, Object... args) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                streamingJdbcTemplate.query(sql, rs -> {
+                    try {
+                        generator.writeStartObject();
+                        rowWriter.write(generator, rs);
+                        generator.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, args);
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    // Như stream, nhưng một dòng không nhất thiết là một object: rowsWriter tự ghi mọi phần tử của mảng ngoài cùng
+    // (ví dụ cây lồng nhau), và finish được gọi sau dòng cuối để ghi nốt và đóng những gì còn mở.
+    public StreamingResponseBody streamRows(String sql, RowsWriter rowsWriter, Object... args) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                streamingJdbcTemplate.query(sql, rs -> {
+                    try {
+                        rowsWriter.write(generator, rs);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, args);
+                rowsWriter.finish(generator);
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface RowWriter {
+        void write(JsonGenerator generator, ResultSet rs) throws SQLException, IOException;
+    }
+
+    public interface RowsWriter {
+        void write(JsonGenerator generator, ResultSet rs) throws SQLException, IOException;
+
+        void finish(JsonGenerator generator) throws IOException;
+    }
+}
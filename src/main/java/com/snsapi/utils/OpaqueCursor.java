@@ -0,0 +1,54 @@
+package com.snsapi.utils;
+
+import com.snsapi.exception.InvalidRequestParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+// Định dạng cursor chung của mọi trang (CursorPage.nextCursor): khoá sắp xếp của phần tử cuối trang, nối bằng "|"
+// rồi mã hoá base64 URL-safe. Client chỉ gửi lại nguyên văn, nên cách phân trang đổi được mà không đổi API.
+public final class OpaqueCursor {
+    private static final String SEPARATOR = "|";
+
+    private OpaqueCursor() {
+    }
+
+    public static String encode(Object... keys) {
+        StringJoiner raw = new StringJoiner(SEPARATOR);
+        for (Object key : keys) {
+            raw.add(String.valueOf(key));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Đúng keyCount khoá; ngược lại InvalidRequestParameterException.
+    public static String[] decode(String cursor, int keyCount) {
+        String[] keys;
+        try {
+            keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw invalid(e);
+        }
+        if (keys.length != keyCount) {
+            throw invalid(null);
+        }
+        return keys;
+    }
+
+    // Cursor chỉ gồm một id; whenAbsent khi client không gửi cursor (trang đầu).
+    public static int decodeId(String cursor, int whenAbsent) {
+        if (cursor == null || cursor.isBlank()) {
+            return whenAbsent;
+        }
+        try {
+            return Integer.parseInt(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw invalid(e);
+        }
+    }
+
+    public static InvalidRequestParameterException invalid(Throwable cause) {
+        return new InvalidRequestParameterException("Cursor không hợp lệ.", cause);
+    }
+}
@@ -0,0 +1,51 @@
+package com.snsapi.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// ETag mạnh dựng từ các giá trị phiên bản (id, updated_at, bộ đếm...) lấy bằng truy vấn rẻ,
+// thay vì băm nội dung response đã render. Băm FNV-1a 64 bit, đủ để phân biệt các phiên bản của cùng một tài nguyên.
+public final class VersionTag {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    public VersionTag add(long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= PRIME;
+        }
+        return this;
+    }
+
+    public VersionTag add(Integer value) {
+        return add(value != null ? value.longValue() : Long.MIN_VALUE);
+    }
+
+    public VersionTag add(Timestamp value) {
+        return value != null ? add(value.getTime()).add(value.getNanos()) : add(Long.MIN_VALUE);
+    }
+
+    public VersionTag add(LocalDateTime value) {
+        return add(value != null ? Timestamp.valueOf(value) : null);
+    }
+
+    public VersionTag add(String value) {
+        if (value == null) {
+            return add(Long.MIN_VALUE);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        add(bytes.length);
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= PRIME;
+        }
+        return this;
+    }
+
+    public String toETag() {
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+}
@@ -0,0 +1,201 @@
+package com.snsapi.like;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LikeWriteBehindBufferTest {
+    private final FakeLikeStore store = new FakeLikeStore();
+    private final LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(store, true, 5000);
+
+    @Test
+    void toggleTwiceCoalescesToNoWrite() {
+        buffer.toggle(LikeTarget.POST, 1, 10);
+        buffer.toggle(LikeTarget.POST, 1, 10);
+        assertEquals(Boolean.FALSE, buffer.pendingState(LikeTarget.POST, 1, 10));
+        assertEquals(0, buffer.pendingDelta(LikeTarget.POST, 1));
+
+        buffer.flush();
+
+        assertTrue(store.batches.isEmpty());
+        assertTrue(store.applied.isEmpty());
+        assertNull(buffer.pendingState(LikeTarget.POST, 1, 10));
+    }
+
+    @Test
+    void pendingChangesAreVisibleUntilFlushed() {
+        store.liked.add(key(LikeTarget.POST, 2, 11));
+
+        LikeToggleResult first = buffer.toggle(LikeTarget.POST, 1, 10);
+        buffer.toggle(LikeTarget.POST, 2, 11);
+
+        assertTrue(first.isLiked());
+        assertEquals(Boolean.TRUE, buffer.pendingState(LikeTarget.POST, 1, 10));
+        assertEquals(Boolean.FALSE, buffer.pendingState(LikeTarget.POST, 2, 11));
+        assertNull(buffer.pendingState(LikeTarget.COMMENT, 1, 10));
+        assertEquals(1, buffer.pendingDelta(LikeTarget.POST, 1));
+        assertEquals(-1, buffer.pendingDelta(LikeTarget.POST, 2));
+
+        buffer.flush();
+
+        assertEquals(1, store.batches.size());
+        assertEquals(2, store.batches.get(0).size());
+        assertNull(buffer.pendingState(LikeTarget.POST, 1, 10));
+        assertEquals(0, buffer.pendingDelta(LikeTarget.POST, 1));
+        assertEquals(0, buffer.pendingDelta(LikeTarget.POST, 2));
+        assertTrue(store.liked.contains(key(LikeTarget.POST, 1, 10)));
+        assertFalse(store.liked.contains(key(LikeTarget.POST, 2, 11)));
+    }
+
+    @Test
+    void failedBatchFallsBackToPerRowApplyAndSkipsDeletedTargets() {
+        store.failBatches = true;
+        store.deletedTargets.add(2);
+        buffer.toggle(LikeTarget.POST, 1, 10);
+        buffer.toggle(LikeTarget.POST, 2, 10);
+        buffer.toggle(LikeTarget.POST, 3, 10);
+
+        buffer.flush();
+
+        assertEquals(3, store.applied.size());
+        assertEquals(Set.of(key(LikeTarget.POST, 1, 10), key(LikeTarget.POST, 3, 10)), store.liked);
+        for (int targetId = 1; targetId <= 3; targetId++) {
+            assertNull(buffer.pendingState(LikeTarget.POST, targetId, 10));
+            assertEquals(0, buffer.pendingDelta(LikeTarget.POST, targetId));
+        }
+    }
+
+    @Test
+    void rowsWrittenBeforeAFailedFallbackAreNotCountedTwice() {
+        store.failBatches = true;
+        store.unavailableTargets.add(2);
+        buffer.toggle(LikeTarget.POST, 1, 10);
+        buffer.toggle(LikeTarget.POST, 2, 10);
+        buffer.toggle(LikeTarget.POST, 3, 10);
+
+        assertThrows(DataAccessException.class, buffer::flush);
+
+        assertFalse(store.liked.contains(key(LikeTarget.POST, 2, 10)));
+        for (int targetId = 1; targetId <= 3; targetId++) {
+            boolean written = store.liked.contains(key(LikeTarget.POST, targetId, 10));
+            assertEquals(written ? 0 : 1, buffer.pendingDelta(LikeTarget.POST, targetId));
+            assertEquals(Boolean.TRUE, buffer.pendingState(LikeTarget.POST, targetId, 10));
+        }
+        assertEquals(2, buffer.toggle(LikeTarget.POST, 2, 11).getLikeCount());
+
+        store.unavailableTargets.clear();
+        buffer.flush();
+
+        for (int targetId = 1; targetId <= 3; targetId++) {
+            assertTrue(store.liked.contains(key(LikeTarget.POST, targetId, 10)));
+            assertEquals(0, buffer.pendingDelta(LikeTarget.POST, targetId));
+        }
+        assertEquals(1, store.applied.stream().filter(change -> change.getTargetId() == 1).count());
+    }
+
+    @Test
+    void toggleReadsTheStoredCountOncePerTarget() {
+        int count = 0;
+        for (int userId = 10; userId < 15; userId++) {
+            count = buffer.toggle(LikeTarget.POST, 1, userId).getLikeCount();
+        }
+        assertEquals(5, count);
+        assertEquals(1, store.countReads);
+
+        buffer.flush();
+
+        assertEquals(6, buffer.toggle(LikeTarget.POST, 1, 15).getLikeCount());
+        assertEquals(2, store.countReads);
+    }
+
+    @Test
+    void shutdownFlushesPendingChanges() {
+        buffer.toggle(LikeTarget.COMMENT, 5, 10);
+
+        buffer.drain();
+
+        assertEquals(Set.of(key(LikeTarget.COMMENT, 5, 10)), store.liked);
+    }
+
+    @Test
+    void disabledBufferReportsNothingPending() {
+        LikeWriteBehindBuffer disabled = new LikeWriteBehindBuffer(store, false, 5000);
+
+        assertNull(disabled.pendingState(LikeTarget.POST, 1, 10));
+        assertEquals(0, disabled.pendingDelta(LikeTarget.POST, 1));
+        assertTrue(disabled.pendingStates(LikeTarget.POST, 10).isEmpty());
+        disabled.drain();
+    }
+
+    private static String key(LikeTarget target, int targetId, int userId) {
+        return target + ":" + targetId + ":" + userId;
+    }
+
+    // Bảng nối trong bộ nhớ; applyBatch có thể bị cho lỗi như khi một đối tượng trong lô vừa bị xoá.
+    private static class FakeLikeStore extends LikeStore {
+        private final Set<String> liked = new HashSet<>();
+        private final Set<Integer> deletedTargets = new HashSet<>();
+        // Database không ghi được các đối tượng này (ví dụ khoá quá thời gian chờ).
+        private final Set<Integer> unavailableTargets = new HashSet<>();
+        private final List<List<LikeChange>> batches = new ArrayList<>();
+        private final List<LikeChange> applied = new ArrayList<>();
+        private boolean failBatches;
+        private int countReads;
+
+        FakeLikeStore() {
+            super(null, null);
+        }
+
+        @Override
+        public LikeToggleResult readState(LikeTarget target, int targetId, int userId) {
+            if (userId == 0) {
+                countReads++;
+            }
+            int count = (int) liked.stream().filter(k -> k.startsWith(target + ":" + targetId + ":")).count();
+            return new LikeToggleResult(liked.contains(key(target, targetId, userId)), count);
+        }
+
+        @Override
+        public void applyBatch(List<LikeChange> changes) {
+            if (failBatches) {
+                throw new DataIntegrityViolationException("foreign key");
+            }
+            batches.add(new ArrayList<>(changes));
+            changes.forEach(this::write);
+        }
+
+        @Override
+        public void apply(LikeChange change) {
+            applied.add(change);
+            if (deletedTargets.contains(change.getTargetId())) {
+                throw new EntityNotFoundException("Bài viết không tồn tại.");
+            }
+            if (unavailableTargets.contains(change.getTargetId())) {
+                throw new QueryTimeoutException("lock wait timeout");
+            }
+            write(change);
+        }
+
+        private void write(LikeChange change) {
+            String key = key(change.getTarget(), change.getTargetId(), change.getUserId());
+            if (change.isLiked()) {
+                liked.add(key);
+            } else {
+                liked.remove(key);
+            }
+        }
+    }
+}
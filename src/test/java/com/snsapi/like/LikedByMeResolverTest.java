@@ -0,0 +1,77 @@
+package com.snsapi.like;
+
+import com.snsapi.post.Post;
+import com.snsapi.post.PostRepository;
+import com.snsapi.user.Role;
+import com.snsapi.user.StatusFriend;
+import com.snsapi.user.User;
+import com.snsapi.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:liked-by-me;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "like.write-behind.enabled=true",
+        "like.write-behind.flush-interval-ms=3600000",
+        "like.liked-cache.enabled=true"
+})
+@ActiveProfiles("test")
+class LikedByMeResolverTest {
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private LikeWriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Test
+    void cacheLoadedWhileLikeIsBufferedSurvivesTheFlush() {
+        User viewer = newUser("viewer");
+        Post liked = newPost(viewer);
+        Post other = newPost(viewer);
+        List<Integer> page = List.of(liked.getId(), other.getId());
+
+        // Lượt bấm chỉ nằm trong bộ đệm ghi trễ; lần đọc đầu tiên nạp tập từ database vào bộ nhớ đệm.
+        likeService.toggle(LikeTarget.POST, liked.getId(), viewer.getId());
+        assertEquals(Set.of(liked.getId()), likeService.likedByMe(LikeTarget.POST, page, viewer.getId()));
+
+        // Sau flush, bộ đệm ghi trễ không còn gì để phủ: bộ nhớ đệm phải tự đúng.
+        writeBehindBuffer.flush();
+        assertEquals(Set.of(liked.getId()), likeService.likedByMe(LikeTarget.POST, page, viewer.getId()));
+
+        likeService.toggle(LikeTarget.POST, liked.getId(), viewer.getId());
+        writeBehindBuffer.flush();
+        assertEquals(Set.of(), likeService.likedByMe(LikeTarget.POST, page, viewer.getId()));
+    }
+
+    private User newUser(String name) {
+        return userRepository.save(User.builder()
+                .email(name + System.nanoTime() + "@sns.test")
+                .name(name)
+                .active(true)
+                .statusFriend(StatusFriend.PUBLIC)
+                .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
+                .build());
+    }
+
+    private Post newPost(User author) {
+        Post post = new Post();
+        post.setUser(author);
+        post.setContent("Bài viết");
+        post.setVisibility(Post.VisibilityEnum.PUBLIC);
+        return postRepository.save(post);
+    }
+}
@@ -0,0 +1,61 @@
+package com.snsapi.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HotMediaCacheTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void admitsFileOnlyAfterRepeatedReads() throws IOException {
+        HotMediaCache cache = new HotMediaCache(64 * 1024, 16 * 1024, 2, 100);
+        Path file = write("a.jpg", 1000, (byte) 1);
+
+        assertNull(acquire(cache, file));
+        try (HotMediaCache.Lease lease = acquire(cache, file)) {
+            assertNotNull(lease);
+            assertEquals(1000, lease.getBytes().remaining());
+        }
+        try (HotMediaCache.Lease lease = acquire(cache, file)) {
+            assertNotNull(lease);
+        }
+    }
+
+    // Chỉ đủ chỗ cho một buffer: mục cũ bị bỏ nhưng buffer của nó chưa bị ghi đè khi Lease còn mở.
+    @Test
+    void evictedBufferIsReusedOnlyAfterLeaseCloses() throws IOException {
+        HotMediaCache cache = new HotMediaCache(1024, 1024, 1, 100);
+        Path first = write("first.jpg", 1000, (byte) 1);
+        Path second = write("second.jpg", 1000, (byte) 2);
+
+        HotMediaCache.Lease held = acquire(cache, first);
+        assertNotNull(held);
+        assertNull(acquire(cache, second));
+
+        held.close();
+        try (HotMediaCache.Lease lease = acquire(cache, second)) {
+            assertNotNull(lease);
+            assertEquals(2, lease.getBytes().get(999));
+        }
+    }
+
+    private HotMediaCache.Lease acquire(HotMediaCache cache, Path file) throws IOException {
+        return cache.acquire(file, file.getFileName().toString(), Files.size(file), Files.getLastModifiedTime(file).toMillis());
+    }
+
+    private Path write(String name, int size, byte value) throws IOException {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, value);
+        return Files.write(dir.resolve(name), bytes);
+    }
+}
@@ -0,0 +1,107 @@
+package com.snsapi.media;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Thông lượng sinh bản thu nhỏ (ảnh/giây) cho ảnh cỡ điện thoại: lần lượt trên một luồng,
+// rồi qua ImageVariantPipeline với image.variants.threads luồng.
+@Tag("benchmark")
+@SpringBootTest(properties = "image.variants.threads=4")
+@ActiveProfiles("test")
+class ImageVariantBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantBenchmarkTest.class);
+
+    private static final int IMAGES = 24;
+    private static final int WIDTH = 4000;
+    private static final int HEIGHT = 3000;
+
+    @Autowired
+    private ImageVariantPipeline imageVariantPipeline;
+
+    @Autowired
+    private ImageVariantGenerator imageVariantGenerator;
+
+    @Value("${upload.image}")
+    private String uploadDir;
+
+    @Test
+    void pipelineThroughput() throws Exception {
+        Path dir = Paths.get(uploadDir);
+        Files.createDirectories(dir);
+        // Hai bộ tên riêng: bản thu nhỏ đã có sẽ không được sinh lại.
+        List<String> sequentialNames = new ArrayList<>();
+        List<String> fileNames = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < IMAGES; i++) {
+            BufferedImage photo = photo(random);
+            String sequentialName = "variant-bench-seq-" + System.nanoTime() + "-" + i + ".jpg";
+            String fileName = "variant-bench-" + System.nanoTime() + "-" + i + ".jpg";
+            ImageIO.write(photo, "jpeg", dir.resolve(sequentialName).toFile());
+            ImageIO.write(photo, "jpeg", dir.resolve(fileName).toFile());
+            sequentialNames.add(sequentialName);
+            fileNames.add(fileName);
+        }
+
+        long start = System.nanoTime();
+        for (String fileName : sequentialNames) {
+            assertTrue(imageVariantGenerator.generate(dir.resolve(fileName), dir, fileName, ImageVariant.FOR_MEDIA));
+        }
+        long sequential = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String fileName : fileNames) {
+            futures.add(imageVariantPipeline.submit(fileName, ImageVariant.FOR_MEDIA));
+        }
+        long submitted = System.nanoTime() - start;
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.join());
+        }
+        long pipelined = System.nanoTime() - start;
+
+        log.info("image variant benchmark: {} images {}x{}, sequential {} images/s, pipeline {} images/s (submit took {} ms)",
+                IMAGES, WIDTH, HEIGHT, String.format("%.1f", IMAGES / (sequential / 1e9)),
+                String.format("%.1f", IMAGES / (pipelined / 1e9)), String.format("%.2f", submitted / 1e6));
+
+        BufferedImage feed = ImageIO.read(dir.resolve(ImageVariant.FEED.fileNameOf(fileNames.get(0))).toFile());
+        assertEquals(ImageVariant.FEED.getSize(), feed.getWidth());
+        assertEquals(HEIGHT * ImageVariant.FEED.getSize() / WIDTH, feed.getHeight());
+        // Gửi việc chỉ là xếp hàng: luồng gọi không làm việc thu nhỏ nào.
+        assertTrue(submitted < pipelined / 4);
+    }
+
+    private BufferedImage photo(Random random) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            for (int i = 0; i < 200; i++) {
+                graphics.setColor(new Color(random.nextInt(0xffffff)));
+                graphics.fillOval(random.nextInt(WIDTH), random.nextInt(HEIGHT), 50 + random.nextInt(800), 50 + random.nextInt(800));
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,87 @@
+package com.snsapi.media;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MediaBlobStoreTest {
+    @Autowired
+    private MediaBlobStore mediaBlobStore;
+
+    @Autowired
+    private MediaBlobCollector mediaBlobCollector;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${upload.image}")
+    private String uploadDir;
+
+    @Test
+    void sameContentSharesOneBlob() throws IOException {
+        byte[] content = ("blob-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+
+        MediaBlob first = mediaBlobStore.store(new MockMultipartFile("file", "a.png", "image/png", content));
+        MediaBlob second = mediaBlobStore.store(new MockMultipartFile("file", "b.jpg", "image/jpeg", content));
+
+        assertEquals(first.getHash(), second.getHash());
+        assertEquals(first.getFileName(), second.getFileName());
+        assertEquals(first.getHash(), MediaBlobStore.hashOf(first.getFileName()));
+        assertEquals(2, refCount(first.getHash()));
+        assertArrayEquals(content, Files.readAllBytes(Paths.get(uploadDir).resolve(first.getFileName())));
+
+        mediaBlobStore.release(first.getHash());
+        mediaBlobStore.release(second.getHash());
+        mediaBlobCollector.collect();
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM media_blob WHERE hash = ?", Integer.class, first.getHash()));
+        assertFalse(Files.exists(Paths.get(uploadDir).resolve(first.getFileName())));
+    }
+
+    @Test
+    void rolledBackCommitLeavesBlobForCollector() throws IOException {
+        byte[] content = ("rollback-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        StagedBlob staged = mediaBlobStore.stage(new MockMultipartFile("file", "a.png", "image/png", content));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                mediaBlobStore.commit(staged);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            status.setRollbackOnly();
+        });
+        mediaBlobStore.discard(staged);
+
+        String hash = staged.getBlob().getHash();
+        assertFalse(Files.exists(staged.getTemp()));
+        assertEquals(0, refCount(hash));
+        mediaBlobCollector.collect();
+        assertFalse(Files.exists(Paths.get(uploadDir).resolve(staged.getBlob().getFileName())));
+    }
+
+    private int refCount(String hash) {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM media_blob WHERE hash = ?", Integer.class, hash);
+    }
+}
@@ -0,0 +1,122 @@
+package com.snsapi.media;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Số tệp/giây qua /image/** (MediaFileController) so với resource handler "file:" cũ, gắn lại ở /image-legacy/**.
+// Tải gồm phần lớn là ảnh nhỏ cỡ ảnh đại diện và một phần ảnh lớn, do nhiều luồng gọi song song.
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class MediaFileBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(MediaFileBenchmarkTest.class);
+
+    private static final int SMALL_FILES = 200;
+    private static final int SMALL_BYTES = 16 * 1024;
+    private static final int LARGE_FILES = 10;
+    private static final int LARGE_BYTES = 1024 * 1024;
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 8000;
+
+    @TestConfiguration
+    static class LegacyImageHandler implements WebMvcConfigurer {
+        @Value("${upload.image}")
+        private String upload;
+
+        @Override
+        public void addResourceHandlers(ResourceHandlerRegistry registry) {
+            registry.addResourceHandler("/image-legacy/**")
+                    .addResourceLocations("file:" + upload);
+        }
+
+        @Bean
+        WebSecurityCustomizer legacyImagePermitAll() {
+            return web -> web.ignoring().requestMatchers("/image-legacy/**");
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MediaBlobStore mediaBlobStore;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void filesPerSecondAgainstResourceHandler() throws Exception {
+        Random random = new Random(11);
+        List<String> fileNames = new ArrayList<>();
+        for (int i = 0; i < SMALL_FILES + LARGE_FILES; i++) {
+            byte[] content = new byte[i < SMALL_FILES ? SMALL_BYTES : LARGE_BYTES];
+            random.nextBytes(content);
+            fileNames.add(mediaBlobStore.store(new MockMultipartFile("file", "f.jpg", "image/jpeg", content)).getFileName());
+        }
+        // 90% yêu cầu vào ảnh nhỏ.
+        int[] picks = random.ints(REQUESTS, 0, 10)
+                .map(bucket -> bucket < 9 ? random.nextInt(SMALL_FILES) : SMALL_FILES + random.nextInt(LARGE_FILES))
+                .toArray();
+
+        run("/image/", fileNames, picks);
+        run("/image-legacy/", fileNames, picks);
+        double current = REQUESTS / (run("/image/", fileNames, picks) / 1e9);
+        double legacy = REQUESTS / (run("/image-legacy/", fileNames, picks) / 1e9);
+        log.info("media serving benchmark: {} requests on {} threads, MediaFileController {} files/s, resource handler {} files/s",
+                REQUESTS, THREADS, String.format("%.0f", current), String.format("%.0f", legacy));
+    }
+
+    private long run(String prefix, List<String> fileNames, int[] picks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < picks.length; i += THREADS) {
+                        HttpResponse<byte[]> response = client.send(get(prefix + fileNames.get(picks[i])).build(),
+                                HttpResponse.BodyHandlers.ofByteArray());
+                        assertEquals(200, response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+    }
+}
@@ -0,0 +1,79 @@
+package com.snsapi.media;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MediaFileControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MediaBlobStore mediaBlobStore;
+
+    @Test
+    void servesImmutableFilesWithETagAndRanges() throws Exception {
+        byte[] content = randomBytes(256 * 1024, 3);
+        checkProtocol(store(content), content);
+    }
+
+    // Ảnh nhỏ: lượt đầu đọc từ đĩa, từ lượt thứ hai trở đi lấy từ HotMediaCache; nội dung và Range phải như nhau.
+    @Test
+    void smallFilesServeTheSameBytesBeforeAndAfterCaching() throws Exception {
+        byte[] content = randomBytes(16 * 1024, 5);
+        String fileName = store(content);
+        for (int i = 0; i < 3; i++) {
+            checkProtocol(fileName, content);
+        }
+    }
+
+    private void checkProtocol(String fileName, byte[] content) throws Exception {
+        MockHttpServletResponse full = mockMvc.perform(get("/image/" + fileName)).andReturn().getResponse();
+        assertEquals(200, full.getStatus());
+        assertArrayEquals(content, full.getContentAsByteArray());
+        assertEquals("public, max-age=31536000, immutable", full.getHeader(HttpHeaders.CACHE_CONTROL));
+        String eTag = full.getHeader(HttpHeaders.ETAG);
+        assertEquals("\"" + MediaBlobStore.hashOf(fileName) + "\"", eTag);
+
+        MockHttpServletResponse notModified = mockMvc.perform(get("/image/" + fileName)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)).andReturn().getResponse();
+        assertEquals(304, notModified.getStatus());
+
+        MockHttpServletResponse partial = mockMvc.perform(get("/image/" + fileName)
+                .header(HttpHeaders.RANGE, "bytes=100-199")).andReturn().getResponse();
+        assertEquals(206, partial.getStatus());
+        assertEquals("bytes 100-199/" + content.length, partial.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), partial.getContentAsByteArray());
+
+        MockHttpServletResponse unsatisfiable = mockMvc.perform(get("/image/" + fileName)
+                .header(HttpHeaders.RANGE, "bytes=" + content.length + "-")).andReturn().getResponse();
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */" + content.length, unsatisfiable.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    private String store(byte[] content) throws Exception {
+        return mediaBlobStore.store(new MockMultipartFile("file", "f.jpg", "image/jpeg", content)).getFileName();
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
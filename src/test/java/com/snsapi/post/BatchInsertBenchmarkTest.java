@@ -0,0 +1,130 @@
+package com.snsapi.post;
+
+import com.snsapi.media.Media;
+import com.snsapi.media.MediaRepository;
+import com.snsapi.notification.Notification;
+import com.snsapi.notification.NotificationRepository;
+import com.snsapi.user.Role;
+import com.snsapi.user.StatusFriend;
+import com.snsapi.user.User;
+import com.snsapi.user.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// So sánh số câu lệnh JDBC Hibernate chuẩn bị khi lưu bài viết kèm ảnh và thông báo, với batch tắt (kích thước 1)
+// và bật (hibernate.jdbc.batch_size). Chạy trên H2 trong bộ nhớ nên chỉ cho thấy Hibernate có gom câu lệnh hay không,
+// không đo được số lượt đi về database: với MySQL, một batch chỉ thành một lượt khi Connector/J gộp nó thành
+// INSERT nhiều dòng (rewriteBatchedStatements=true trong application.properties); thời gian in ra không đại diện cho MySQL.
+// Bài viết và ảnh đi qua cùng đường lưu với PostService.save; thông báo được lưu thẳng bằng saveAll của repository
+// vì chưa có luồng nào trong ứng dụng tạo nhiều thông báo một lúc, phần đó chỉ cho thấy bảng notification gom được batch.
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:batch-bench;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class BatchInsertBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(BatchInsertBenchmarkTest.class);
+
+    private static final int POSTS = 200;
+    private static final int MEDIA_PER_POST = 4;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Test
+    void batchedInsertsPrepareFewerStatements() {
+        User author = userRepository.save(newUser("batch-author"));
+        User reader = userRepository.save(newUser("batch-reader"));
+
+        long[] unbatched = saveWorkload(1, author, reader);
+        long[] batched = saveWorkload(BATCH_SIZE, author, reader);
+
+        log.info("batch insert benchmark: {} posts x {} media + {} notifications, " +
+                        "unbatched {} statements in {} ms, batched {} statements in {} ms",
+                POSTS, MEDIA_PER_POST, POSTS, unbatched[0], String.format("%.1f", unbatched[1] / 1e6),
+                batched[0], String.format("%.1f", batched[1] / 1e6));
+        assertTrue(batched[0] * 5 < unbatched[0]);
+    }
+
+    // Trả về {số câu lệnh đã chuẩn bị, thời gian tính bằng nano giây}.
+    private long[] saveWorkload(int jdbcBatchSize, User author, User reader) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            List<Notification> notifications = new ArrayList<>();
+            for (int i = 0; i < POSTS; i++) {
+                Post post = new Post();
+                post.setUser(author);
+                post.setContent("Bài viết " + i);
+                post.setVisibility(Post.VisibilityEnum.PUBLIC);
+                post = postRepository.save(post);
+
+                List<Media> media = new ArrayList<>();
+                for (int m = 0; m < MEDIA_PER_POST; m++) {
+                    media.add(Media.builder().post(post).fileName("b" + i + "-" + m + ".jpg").mediaType("image/jpeg").build());
+                }
+                mediaRepository.saveAll(media);
+
+                notifications.add(Notification.builder()
+                        .sender(reader)
+                        .recipient(author)
+                        .message(reader.getUsername() + " đã bình luận bài đăng của bạn.")
+                        .notificationType(Notification.NotificationType.COMMENT_POST)
+                        .post(post)
+                        .isRead(false)
+                        .build());
+            }
+            notificationRepository.saveAll(notifications);
+        });
+
+        return new long[]{statistics.getPrepareStatementCount(), System.nanoTime() - start};
+    }
+
+    private User newUser(String name) {
+        return User.builder()
+                .email(name + "@sns.test")
+                .name(name)
+                .active(true)
+                .statusFriend(StatusFriend.PUBLIC)
+                .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
+                .build();
+    }
+}
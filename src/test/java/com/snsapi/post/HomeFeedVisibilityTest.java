@@ -0,0 +1,98 @@
+package com.snsapi.post;
+
+import com.snsapi.friend.AddFriendService;
+import com.snsapi.user.Role;
+import com.snsapi.user.StatusFriend;
+import com.snsapi.user.User;
+import com.snsapi.user.UserRepository;
+import com.snsapi.utils.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Điều kiện hiển thị của trang chủ (findHomeFirstPage / findHomePageAfter): bài của chính người xem ở mọi chế độ,
+// bài FRIENDS_ONLY của bạn bè và bài PUBLIC của mọi người. Trang nhỏ để đi qua cả truy vấn trang sau.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:home-visibility;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@Transactional
+class HomeFeedVisibilityTest {
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddFriendService addFriendService;
+
+    @Test
+    void viewerSeesOwnFriendsAndPublicPostsOnly() {
+        User viewer = newUser("viewer");
+        User friend = newUser("friend");
+        User stranger = newUser("stranger");
+        addFriendService.addFriendSuccess(viewer.getId(), friend.getId());
+
+        Post ownPrivate = newPost(viewer, Post.VisibilityEnum.PRIVATE);
+        Post friendFriendsOnly = newPost(friend, Post.VisibilityEnum.FRIENDS_ONLY);
+        newPost(friend, Post.VisibilityEnum.PRIVATE);
+        newPost(stranger, Post.VisibilityEnum.FRIENDS_ONLY);
+        newPost(stranger, Post.VisibilityEnum.PRIVATE);
+        Post strangerPublic = newPost(stranger, Post.VisibilityEnum.PUBLIC);
+
+        assertEquals(Set.of(ownPrivate.getId(), friendFriendsOnly.getId(), strangerPublic.getId()), homeIds(viewer));
+    }
+
+    // Không có bạn bè: danh sách IN chỉ có id -1, không khớp tác giả nào.
+    @Test
+    void viewerWithoutFriendsSeesOwnAndPublicPostsOnly() {
+        User viewer = newUser("loner");
+        User other = newUser("other");
+
+        Post ownFriendsOnly = newPost(viewer, Post.VisibilityEnum.FRIENDS_ONLY);
+        Post ownPrivate = newPost(viewer, Post.VisibilityEnum.PRIVATE);
+        newPost(other, Post.VisibilityEnum.FRIENDS_ONLY);
+        newPost(other, Post.VisibilityEnum.PRIVATE);
+        Post otherPublic = newPost(other, Post.VisibilityEnum.PUBLIC);
+
+        assertEquals(Set.of(ownFriendsOnly.getId(), ownPrivate.getId(), otherPublic.getId()), homeIds(viewer));
+    }
+
+    private Set<Integer> homeIds(User viewer) {
+        Set<Integer> ids = new HashSet<>();
+        String cursor = null;
+        do {
+            CursorPage<Post> page = postService.getHomePage(viewer.getId(), cursor, 2);
+            page.getContent().forEach(post -> ids.add(post.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private User newUser(String name) {
+        return userRepository.save(User.builder()
+                .email(name + System.nanoTime() + "@sns.test")
+                .name(name)
+                .active(true)
+                .statusFriend(StatusFriend.PUBLIC)
+                .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
+                .build());
+    }
+
+    private Post newPost(User author, Post.VisibilityEnum visibility) {
+        Post post = new Post();
+        post.setUser(author);
+        post.setContent("Bài viết");
+        post.setVisibility(visibility);
+        return postRepository.save(post);
+    }
+}
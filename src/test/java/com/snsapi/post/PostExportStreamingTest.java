@@ -0,0 +1,111 @@
+package com.snsapi.post;
+
+import com.snsapi.user.Role;
+import com.snsapi.user.StatusFriend;
+import com.snsapi.user.User;
+import com.snsapi.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export-stream;MODE=MySQL;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=TRUE"
+})
+@ActiveProfiles("test")
+class PostExportStreamingTest {
+    // Đủ nhỏ để chạy cùng bộ test mặc định, đủ lớn để bản dựng cả danh sách vượt xa MAX_HEAP_GROWTH.
+    private static final int ROWS = 30_000;
+    private static final int BATCH = 5_000;
+    private static final String PADDING = "x".repeat(300);
+    // Giữ cả danh sách PostDTO cho ROWS bài viết sẽ tốn khoảng 20-30 MB; khi stream, heap còn sống phải gần như không đổi.
+    private static final long MAX_HEAP_GROWTH = 8L * 1024 * 1024;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportKeepsHeapFlatWhileStreaming() throws IOException {
+        seed();
+
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream();
+        postService.exportPublicPosts().writeTo(out);
+
+        assertEquals(ROWS, out.objects);
+        assertTrue(out.samples.size() > 2);
+        long growth = out.samples.stream().mapToLong(Long::longValue).max().orElse(0) - out.samples.get(0);
+        assertTrue(growth < MAX_HEAP_GROWTH, "Heap tăng " + growth + " byte khi xuất " + ROWS + " bài viết");
+    }
+
+    private void seed() {
+        User author = userRepository.save(User.builder()
+                .email("exporter@sns.test")
+                .name("exporter")
+                .active(true)
+                .statusFriend(StatusFriend.PUBLIC)
+                .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
+                .build());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < ROWS; from += BATCH) {
+            List<Object[]> rows = new ArrayList<>(BATCH);
+            for (int i = from; i < from + BATCH; i++) {
+                rows.add(new Object[]{i + 1, author.getId(), "Bài viết " + i + " " + PADDING, now, now});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO post (id, user_id, content, visibility, like_count, like_version, comment_count, " +
+                    "created_at, updated_at) VALUES (?, ?, ?, 'PUBLIC', 0, 0, 0, ?, ?)", rows);
+        }
+    }
+
+    // Đếm số object JSON đã ghi và đo heap còn sống (sau GC) mỗi khi ghi thêm SAMPLE_EVERY byte.
+    private static class HeapSamplingOutputStream extends OutputStream {
+        private static final long SAMPLE_EVERY = 2L * 1024 * 1024;
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final List<Long> samples = new ArrayList<>();
+        private long written;
+        private long nextSample = 1024 * 1024;
+        private int objects;
+
+        @Override
+        public void write(int b) {
+            if (b == '{') {
+                objects++;
+            }
+            written++;
+            if (written >= nextSample) {
+                System.gc();
+                samples.add(memory.getHeapMemoryUsage().getUsed());
+                nextSample += SAMPLE_EVERY;
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
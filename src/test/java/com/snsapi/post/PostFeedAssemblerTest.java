@@ -0,0 +1,168 @@
+package com.snsapi.post;
+
+import com.snsapi.comment.Comment;
+import com.snsapi.comment.CommentRepository;
+import com.snsapi.media.Media;
+import com.snsapi.media.MediaRepository;
+import com.snsapi.user.Role;
+import com.snsapi.user.StatusFriend;
+import com.snsapi.user.User;
+import com.snsapi.user.UserRepository;
+import com.snsapi.utils.CursorPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class PostFeedAssemblerTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostFeedAssembler postFeedAssembler;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void queryCountStaysConstantAsPageGrows() {
+        seedPosts(40);
+
+        long smallPage = countStatementsForPage(5);
+        long largePage = countStatementsForPage(40);
+
+        assertEquals(smallPage, largePage);
+    }
+
+    @Test
+    void feedEmbedsOnlyTopLevelCommentPreview() {
+        seedPosts(1);
+        entityManager.flush();
+        entityManager.clear();
+
+        PostDTO postDTO = postFeedAssembler.assemble(postService.getFeedPage(null, 1).getContent()).get(0);
+
+        assertEquals(1, postDTO.getComments().size());
+        assertEquals(1, postDTO.getComments().get(0).getReplyCount());
+        assertNull(postDTO.getComments().get(0).getReplies());
+        assertEquals(2, postDTO.getMedia().size());
+        assertEquals(1, postDTO.getLikes().getLikeCount());
+        assertEquals(1, postDTO.getLikes().getLikeByUsers().size());
+        assertEquals(2, postDTO.getCommentCount());
+        assertTrue(postDTO.getCreatedBy() != null);
+    }
+
+    @Test
+    void sparseFieldsSkipUnrequestedRelations() {
+        seedPosts(5);
+        long full = countStatementsForPage(5);
+
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<PostDTO> postDTOs = postFeedAssembler.assemble(postService.getFeedPage(null, 5).getContent(), null,
+                PostFeedAssembler.parseFields("id,content", "likes"));
+        long sparse = statistics.getPrepareStatementCount();
+
+        PostDTO postDTO = postDTOs.get(0);
+        assertTrue(postDTO.getId() != null && postDTO.getContent() != null);
+        assertEquals(1, postDTO.getLikes().getLikeCount());
+        assertNull(postDTO.getLikes().getLikeByUsers());
+        assertNull(postDTO.getMedia());
+        assertNull(postDTO.getComments());
+        assertNull(postDTO.getCreatedBy());
+        assertTrue(sparse < full);
+        // Post.user là LAZY: không chọn createdBy thì không nạp User nào.
+        assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+    }
+
+    private long countStatementsForPage(int pageSize) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CursorPage<Post> page = postService.getFeedPage(null, pageSize);
+        List<PostDTO> postDTOs = postFeedAssembler.assemble(page.getContent());
+
+        assertEquals(pageSize, postDTOs.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seedPosts(int count) {
+        for (int i = 0; i < count; i++) {
+            User author = userRepository.save(newUser("author" + i));
+            User reader = userRepository.save(newUser("reader" + i));
+
+            Post post = new Post();
+            post.setUser(author);
+            post.setContent("Bài viết " + i);
+            post.setVisibility(Post.VisibilityEnum.PUBLIC);
+            post.getLikeUsers().add(reader);
+            post.setLikeCount(1);
+            post.setCommentCount(2);
+            post = postRepository.save(post);
+
+            mediaRepository.save(Media.builder().post(post).fileName("a" + i + ".jpg").mediaType("image/jpeg").build());
+            mediaRepository.save(Media.builder().post(post).fileName("b" + i + ".jpg").mediaType("image/jpeg").build());
+
+            Comment comment = new Comment();
+            comment.setPost(post);
+            comment.setUser(reader);
+            comment.setContent("Bình luận " + i);
+            comment.getLikeUsers().add(author);
+            comment.setLikeCount(1);
+            comment = commentRepository.save(comment);
+
+            Comment reply = new Comment();
+            reply.setPost(post);
+            reply.setUser(author);
+            reply.setContent("Trả lời " + i);
+            reply.setParentComment(comment);
+            commentRepository.save(reply);
+        }
+    }
+
+    private User newUser(String name) {
+        return User.builder()
+                .email(name + "@sns.test")
+                .name(name)
+                .active(true)
+                .statusFriend(StatusFriend.PUBLIC)
+                .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.snsapi.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NameTrieTest {
+
+    @Test
+    void visitsPrefixMatchesInWordOrder() {
+        NameTrie trie = new NameTrie();
+        trie.add("hieu", 2);
+        trie.add("hoa", 3);
+        trie.add("hien", 1);
+        trie.add("hien", 4);
+
+        assertEquals(List.of(1, 4, 2), ids(trie, "hi"));
+        assertEquals(List.of(1, 4, 2, 3), ids(trie, "h"));
+        assertEquals(List.of(), ids(trie, "hiep"));
+    }
+
+    // Gỡ id cuối của một từ thì nút của từ đó biến mất và nút trung gian còn một con được gộp lại.
+    @Test
+    void removePrunesEmptiedNodes() {
+        NameTrie trie = new NameTrie();
+        trie.add("hien", 1);
+        trie.add("hieu", 2);
+        trie.add("hoa", 3);
+
+        trie.remove("hieu", 2);
+
+        NameTrie expected = new NameTrie();
+        expected.add("hien", 1);
+        expected.add("hoa", 3);
+        assertEquals(expected.nodeCount(), trie.nodeCount());
+        assertEquals(List.of(1), ids(trie, "hi"));
+        assertEquals(List.of(1, 3), ids(trie, "h"));
+
+        trie.remove("hien", 1);
+        trie.remove("hoa", 3);
+        assertEquals(1, trie.nodeCount());
+    }
+
+    @Test
+    void repeatedRenamesDoNotGrowTheTrie() {
+        NameTrie trie = new NameTrie();
+        trie.add("lan", 1);
+        int nodes = trie.nodeCount();
+
+        for (int i = 0; i < 100; i++) {
+            trie.add("ten" + i, 2);
+            trie.remove("ten" + i, 2);
+        }
+
+        assertEquals(nodes, trie.nodeCount());
+        assertEquals(List.of(1), ids(trie, "la"));
+    }
+
+    private static List<Integer> ids(NameTrie trie, String prefix) {
+        List<Integer> ids = new ArrayList<>();
+        trie.visitPrefix(prefix, ids::add);
+        return ids;
+    }
+}
@@ -0,0 +1,58 @@
+package com.snsapi.search;
+
+import com.snsapi.friend.FriendIdSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PostSearchIndexTest {
+    @TempDir
+    Path dir;
+
+    // Trong lúc dựng lại, tìm kiếm vẫn trả kết quả của chỉ mục cũ; bản đọc từ database của bài vừa được sửa
+    // hoặc xoá trực tiếp không ghi đè lên thay đổi đó.
+    @Test
+    void rebuildSwapsInFreshGenerationWithoutLosingLiveWrites() throws IOException {
+        PostSearchIndex index = new PostSearchIndex(dir.toString());
+        try {
+            index.indexAndRefresh(post(1, "mèo cũ"));
+            index.indexAndRefresh(post(2, "mèo sẽ bị xoá"));
+
+            index.beginRebuild();
+            index.indexAndRefresh(post(1, "chó mới"));
+            index.deleteAndRefresh(2);
+            index.indexAndRefresh(post(3, "chó con"));
+            index.reindex(post(1, "mèo cũ"));
+            index.reindex(post(2, "mèo sẽ bị xoá"));
+            index.reindex(post(4, "chó già"));
+            assertEquals(List.of(), search(index, "già"));
+
+            index.finishRebuild();
+
+            assertEquals(List.of(), search(index, "mèo"));
+            assertEquals(List.of(1, 3, 4), search(index, "chó").stream().sorted().toList());
+        } finally {
+            index.close();
+        }
+
+        PostSearchIndex reopened = new PostSearchIndex(dir.toString());
+        try {
+            assertEquals(3, reopened.numDocs());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private List<Integer> search(PostSearchIndex index, String text) {
+        return index.search(text, null, FriendIdSet.empty(), 0, 10);
+    }
+
+    private static IndexedPost post(int id, String content) {
+        return new IndexedPost(id, 100 + id, content, "PUBLIC", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,85 @@
+package com.snsapi.search;
+
+import com.snsapi.friend.FriendIdSet;
+import com.snsapi.user.UserDTO;
+import com.snsapi.user.UserSummaryCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class TypeaheadIndexTest {
+    private final Map<Integer, String> names = new HashMap<>();
+    private TypeaheadIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TypeaheadIndex(null, new FakeUserSummaryCache());
+        put(1, "Nguyễn Thị Hiền");
+        put(2, "Hiền Lê");
+        put(3, "Hoàng Hiếu");
+        put(4, "Lan");
+    }
+
+    @Test
+    void friendsComeFirst() {
+        assertEquals(List.of(1, 2, 3), ids(index.suggest("hi", FriendIdSet.empty(), 10)));
+        assertEquals(List.of(3, 1, 2), ids(index.suggest("hi", FriendIdSet.of(List.of(3)), 10)));
+        assertEquals(List.of(3, 1), ids(index.suggest("hi", FriendIdSet.of(List.of(3)), 2)));
+    }
+
+    @Test
+    void everyQueryWordMustPrefixAWord() {
+        assertEquals(List.of(1), ids(index.suggest("ng hi", FriendIdSet.empty(), 10)));
+        assertEquals(List.of(3), ids(index.suggest("Hiếu ho", FriendIdSet.empty(), 10)));
+    }
+
+    @Test
+    void renameReplacesOldWords() {
+        put(2, "Minh");
+
+        assertEquals(List.of(1, 3), ids(index.suggest("hi", FriendIdSet.empty(), 10)));
+        assertEquals(List.of(2), ids(index.suggest("mi", FriendIdSet.empty(), 10)));
+        assertEquals("Minh", index.suggest("mi", FriendIdSet.empty(), 10).get(0).getName());
+    }
+
+    // Kết quả lấy từ UserSummaryCache: có avatarVariants và là bản riêng của mỗi lần gọi.
+    @Test
+    void suggestionsAreSummaryCopies() {
+        UserDTO first = index.suggest("lan", FriendIdSet.empty(), 10).get(0);
+        UserDTO second = index.suggest("lan", FriendIdSet.empty(), 10).get(0);
+
+        assertEquals(Map.of("small", "avatar-4-small.webp"), first.getAvatarVariants());
+        assertNotSame(first, second);
+    }
+
+    private void put(int id, String name) {
+        names.put(id, name);
+        index.put(new UserDTO(id, name, null));
+    }
+
+    private static List<Integer> ids(List<UserDTO> users) {
+        return users.stream().map(UserDTO::getId).toList();
+    }
+
+    private class FakeUserSummaryCache extends UserSummaryCache {
+        FakeUserSummaryCache() {
+            super(null, 100);
+        }
+
+        @Override
+        public Map<Integer, UserDTO> getAll(Collection<Integer> userIds) {
+            Map<Integer, UserDTO> users = new HashMap<>();
+            for (Integer id : userIds) {
+                users.put(id, new UserDTO(id, names.get(id), null, Map.of("small", "avatar-" + id + "-small.webp")));
+            }
+            return users;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.snsapi.search;
+
+import com.snsapi.user.UserDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserSearchIndexTest {
+    @TempDir
+    Path dir;
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new UserSearchIndex(dir.toString());
+        index.indexAndRefresh(new UserDTO(1, "Nguyễn Thị Hiền", null));
+        index.indexAndRefresh(new UserDTO(2, "Hiển Lê", null));
+        index.indexAndRefresh(new UserDTO(3, "Trần Văn Chiến", null));
+        index.indexAndRefresh(new UserDTO(4, "Hoàng Lan", null));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    // Từ khoá không dấu khớp tên có dấu; tên có từ bắt đầu bằng từ khoá đứng trước tên chỉ chứa nó ở giữa một từ.
+    @Test
+    void unaccentedQueryFindsAccentedNamesWordPrefixFirst() {
+        List<UserDTO> users = index.search("Hien", 0, 10);
+
+        assertEquals(3, users.size());
+        assertEquals(Set.of(1, 2), Set.of(users.get(0).getId(), users.get(1).getId()));
+        assertEquals(3, users.get(2).getId());
+        assertEquals("Nguyễn Thị Hiền", users.stream().filter(user -> user.getId() == 1).findFirst().orElseThrow().getName());
+    }
+
+    @Test
+    void pagesFollowTheRanking() {
+        List<Integer> all = ids(index.search("Hien", 0, 10));
+
+        List<Integer> paged = new ArrayList<>(ids(index.search("Hien", 0, 2)));
+        paged.addAll(ids(index.search("hiền", 2, 2)));
+
+        assertEquals(all, paged);
+        assertEquals(List.of(), index.search("Hien", 4, 2));
+    }
+
+    // Ngắn hơn một trigram: chỉ khớp đầu từ.
+    @Test
+    void shortQueryMatchesWordPrefixes() {
+        assertEquals(Set.of(1, 2), Set.copyOf(ids(index.search("hi", 0, 10))));
+        assertEquals(List.of(4), ids(index.search("La", 0, 10)));
+    }
+
+    private static List<Integer> ids(List<UserDTO> users) {
+        return users.stream().map(UserDTO::getId).toList();
+    }
+}
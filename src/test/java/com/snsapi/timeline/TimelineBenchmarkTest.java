@@ -0,0 +1,133 @@
+package com.snsapi.timeline;
+
+import com.snsapi.friend.AddFriend;
+import com.snsapi.friend.IAddFriendRepository;
+import com.snsapi.friend.Status;
+import com.snsapi.post.Post;
+import com.snsapi.post.PostService;
+import com.snsapi.user.Role;
+import com.snsapi.user.StatusFriend;
+import com.snsapi.user.User;
+import com.snsapi.user.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:timeline-bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "timeline.fanout.enabled=true",
+        "timeline.capacity=500"
+})
+@ActiveProfiles("test")
+class TimelineBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(TimelineBenchmarkTest.class);
+
+    private static final int USERS = 300;
+    private static final int FRIENDS_PER_USER = 30;
+    private static final int POSTS_PER_USER = 10;
+    private static final int READS = 2000;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IAddFriendRepository addFriendRepository;
+
+    @Test
+    void pushModeVersusPullMode() {
+        List<Integer> userIds = seed();
+        Random random = new Random(42);
+        int[] viewers = random.ints(READS, 0, userIds.size()).map(userIds::get).toArray();
+
+        Integer sampleViewer = viewers[0];
+        List<Integer> pushPage = pageIds(sampleViewer);
+        long pushNanos = readAll(viewers);
+
+        ReflectionTestUtils.setField(timelineService, "fanoutEnabled", false);
+        try {
+            List<Integer> pullPage = pageIds(sampleViewer);
+            long pullNanos = readAll(viewers);
+
+            assertEquals(pullPage, pushPage);
+            log.info("timeline benchmark: {} reads, push {} µs/read, pull {} µs/read",
+                    READS, String.format("%.1f", pushNanos / 1000.0 / READS), String.format("%.1f", pullNanos / 1000.0 / READS));
+        } finally {
+            ReflectionTestUtils.setField(timelineService, "fanoutEnabled", true);
+        }
+    }
+
+    private long readAll(int[] viewers) {
+        long start = System.nanoTime();
+        for (int viewer : viewers) {
+            timelineService.getFriendFeed(viewer, null, 20);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private List<Integer> pageIds(Integer viewerId) {
+        return timelineService.getFriendFeed(viewerId, null, 20).getContent().stream()
+                .map(Post::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<Integer> seed() {
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(User.builder()
+                    .email("timeline" + i + "@sns.test")
+                    .name("Timeline " + i)
+                    .active(true)
+                    .statusFriend(StatusFriend.PUBLIC)
+                    .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
+                    .build());
+            userIds.add(user.getId());
+        }
+
+        List<AddFriend> friendships = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            for (int k = 1; k <= FRIENDS_PER_USER / 2; k++) {
+                Integer a = userIds.get(i);
+                Integer b = userIds.get((i + k) % USERS);
+                friendships.add(friendship(a, b));
+                friendships.add(friendship(b, a));
+            }
+        }
+        addFriendRepository.saveAll(friendships);
+
+        for (int round = 0; round < POSTS_PER_USER; round++) {
+            for (Integer userId : userIds) {
+                postService.save(userId, "Bài viết " + round, Post.VisibilityEnum.FRIENDS_ONLY, null);
+            }
+        }
+        return userIds;
+    }
+
+    private AddFriend friendship(Integer userId, Integer friendId) {
+        return AddFriend.builder()
+                .user(User.builder().id(userId).build())
+                .friend(User.builder().id(friendId).build())
+                .status(Status.ACCEPTED)
+                .build();
+    }
+}
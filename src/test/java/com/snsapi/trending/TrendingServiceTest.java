@@ -0,0 +1,118 @@
+package com.snsapi.trending;
+
+import com.snsapi.post.Post;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendingServiceTest {
+    private static final double HOUR = 3600;
+    private static final double T0 = 1_700_000_000;
+
+    // Nửa đời 6 giờ, thích = 1, bình luận = 2.
+    private final TrendingService trending = new TrendingService(null, 6, 1, 2, 7);
+
+    @Test
+    void rankingWeighsCountAndRecency() {
+        like(1, 10, T0);
+        // Muộn hơn một giờ: 2^(1/6) lượt thích tại T0.
+        like(2, 10, T0 + HOUR);
+        like(3, 10, T0);
+        like(3, 11, T0);
+
+        assertEquals(List.of(3, 2, 1), trending.topPostIds(10));
+    }
+
+    @Test
+    void unlikeRemovesExactlyWhatTheLikeAdded() {
+        // Bài 1 có ba lượt thích và một bình luận cũ; bài 2 giống hệt nhưng không có lượt thích của người 12.
+        for (int userId = 10; userId < 13; userId++) {
+            like(1, userId, T0);
+        }
+        trending.onCommentAdded(1, Post.VisibilityEnum.PUBLIC, T0);
+        like(2, 10, T0);
+        like(2, 11, T0);
+        trending.onCommentAdded(2, Post.VisibilityEnum.PUBLIC, T0);
+        like(3, 10, T0 - HOUR);
+
+        // Hai ngày sau, điểm của bài 1 nhỏ hơn nhiều so với một lượt thích mới; bỏ thích chỉ trừ phần đã tan.
+        trending.onLikeToggled(1, 12, false, Post.VisibilityEnum.PUBLIC, T0 + 48 * HOUR);
+
+        List<Integer> top = trending.topPostIds(10);
+        assertEquals(3, top.size());
+        assertEquals(3, top.get(2));
+        assertTrue(top.containsAll(List.of(1, 2)));
+    }
+
+    @Test
+    void unlikeWithoutRecordedLikeIsIgnored() {
+        like(1, 10, T0);
+        // Người 11 đã thích trước khi khởi động nên không có thời điểm thích.
+        trending.onLikeToggled(1, 11, false, Post.VisibilityEnum.PUBLIC, T0 + HOUR);
+
+        assertEquals(List.of(1), trending.topPostIds(10));
+    }
+
+    @Test
+    void likeThenUnlikeDoesNotAccumulate() {
+        like(1, 10, T0);
+        like(2, 11, T0);
+        for (int i = 0; i < 5; i++) {
+            like(1, 12, T0 + i);
+            trending.onLikeToggled(1, 12, false, Post.VisibilityEnum.PUBLIC, T0 + i);
+        }
+        like(2, 13, T0);
+
+        assertEquals(List.of(2, 1), trending.topPostIds(10));
+    }
+
+    @Test
+    void onlyPublicPostsAreRanked() {
+        trending.onLikeToggled(1, 10, true, Post.VisibilityEnum.FRIENDS_ONLY, T0);
+        trending.onCommentAdded(2, Post.VisibilityEnum.PRIVATE, T0);
+        like(3, 10, T0);
+
+        assertEquals(List.of(3), trending.topPostIds(10));
+    }
+
+    @Test
+    void pruneDropsDecayedPostsAndRemoveDropsHiddenOnes() {
+        like(1, 10, T0);
+        like(2, 10, T0 + 48 * HOUR);
+        like(3, 10, T0 + 48 * HOUR);
+
+        trending.prune(T0 + 48 * HOUR);
+        assertEquals(List.of(2, 3), trending.topPostIds(10));
+
+        trending.remove(3);
+        assertEquals(List.of(2), trending.topPostIds(10));
+    }
+
+    // Các bài liên tục vượt nhau trong lúc đọc: mỗi bài chỉ xuất hiện một lần.
+    @Test
+    void topPostIdsHasNoDuplicatesWhileScoresChange() throws InterruptedException {
+        for (int postId = 1; postId <= 20; postId++) {
+            like(postId, 1, T0);
+        }
+        Thread writer = new Thread(() -> {
+            for (int userId = 2; userId < 20_000; userId++) {
+                like(1 + userId % 20, userId, T0 + userId);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Integer> top = trending.topPostIds(20);
+            assertEquals(Set.copyOf(top).size(), top.size());
+        }
+        writer.join();
+        assertEquals(20, trending.topPostIds(20).size());
+    }
+
+    private void like(int postId, int userId, double atSeconds) {
+        trending.onLikeToggled(postId, userId, true, Post.VisibilityEnum.PUBLIC, atSeconds);
+    }
+}
@@ -0,0 +1,168 @@
+package com.snsapi.utils;
+
+import com.snsapi.comment.CommentDTO;
+import com.snsapi.comment.CommentService;
+import com.snsapi.config.jwt.JwtService;
+import com.snsapi.friend.AddFriendService;
+import com.snsapi.like.LikeService;
+import com.snsapi.like.LikeTarget;
+import com.snsapi.like.LikeWriteBehindBuffer;
+import com.snsapi.post.Post;
+import com.snsapi.post.PostRepository;
+import com.snsapi.user.Role;
+import com.snsapi.user.StatusFriend;
+import com.snsapi.user.User;
+import com.snsapi.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// 304 của ba endpoint có ETag: feed, hồ sơ và danh sách bạn bè. Ghi trễ lượt thích được bật (không flush theo lịch)
+// để kiểm tra cả thay đổi còn nằm trong bộ đệm.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-get;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "like.write-behind.enabled=true",
+        "like.write-behind.flush-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private LikeWriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private AddFriendService addFriendService;
+
+    @Test
+    void feedChangesWhenLikersChangeButCountDoesNot() throws Exception {
+        User viewer = newUser("viewer");
+        User first = newUser("first");
+        User second = newUser("second");
+        Post post = newPost(viewer);
+        CommentDTO comment = commentService.saveComment(viewer.getId(), post.getId(), "Bình luận");
+        String token = tokenOf(viewer);
+
+        likeService.toggle(LikeTarget.POST, post.getId(), first.getId());
+        String pending = fetch("/api/v1/posts", token, null, 200);
+        fetch("/api/v1/posts", token, pending, 304);
+
+        // Người thích đổi trong bộ đệm, số lượt thích vẫn là 1.
+        likeService.toggle(LikeTarget.POST, post.getId(), first.getId());
+        likeService.toggle(LikeTarget.POST, post.getId(), second.getId());
+        String swapped = fetch("/api/v1/posts", token, pending, 200);
+        assertNotEquals(pending, swapped);
+
+        writeBehindBuffer.flush();
+        String flushed = fetch("/api/v1/posts", token, swapped, 200);
+        fetch("/api/v1/posts", token, flushed, 304);
+
+        // Cùng thay đổi đó sau khi đã ghi xuống database: like_count không đổi, like_version thì có.
+        likeService.toggle(LikeTarget.POST, post.getId(), second.getId());
+        likeService.toggle(LikeTarget.POST, post.getId(), first.getId());
+        writeBehindBuffer.flush();
+        String rewritten = fetch("/api/v1/posts", token, flushed, 200);
+
+        // Lượt thích bình luận còn chờ ghi cũng làm đổi ETag.
+        likeService.toggle(LikeTarget.COMMENT, comment.getId(), viewer.getId());
+        String commentLiked = fetch("/api/v1/posts", token, rewritten, 200);
+        writeBehindBuffer.flush();
+        String commentFlushed = fetch("/api/v1/posts", token, commentLiked, 200);
+        fetch("/api/v1/posts", token, commentFlushed, 304);
+    }
+
+    @Test
+    void profileIsNotModifiedUntilSaved() throws Exception {
+        User user = newUser("profile");
+        String token = tokenOf(user);
+        String path = "/api/v1/users/" + user.getId();
+
+        String eTag = fetch(path, token, null, 200);
+        fetch(path, token, eTag, 304);
+
+        user.setName("profile-renamed");
+        userRepository.save(user);
+        String renamed = fetch(path, token, eTag, 200);
+        fetch(path, token, renamed, 304);
+    }
+
+    @Test
+    void friendListIsNotModifiedUntilFriendsChange() throws Exception {
+        User user = newUser("friends");
+        User friend = newUser("friend");
+        String token = tokenOf(user);
+
+        String eTag = fetch("/api/v1/me/friends", token, null, 200);
+        fetch("/api/v1/me/friends", token, eTag, 304);
+
+        addFriendService.addFriendSuccess(user.getId(), friend.getId());
+        String added = fetch("/api/v1/me/friends", token, eTag, 200);
+        fetch("/api/v1/me/friends", token, added, 304);
+    }
+
+    // Trả ETag của response; với 304 là ETag gửi lên.
+    private String fetch(String path, String token, String ifNoneMatch, int expectedStatus) throws Exception {
+        var request = get(path).header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertEquals(expectedStatus, result.getResponse().getStatus());
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        return eTag;
+    }
+
+    private String tokenOf(User user) {
+        return jwtService.generateTokenLogin(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private User newUser(String name) {
+        return userRepository.save(User.builder()
+                .email(name + System.nanoTime() + "@sns.test")
+                .name(name)
+                .active(true)
+                .statusFriend(StatusFriend.PUBLIC)
+                .roles(new HashSet<>(Set.of(Role.ROLE_USER)))
+                .build());
+    }
+
+    private Post newPost(User author) {
+        Post post = new Post();
+        post.setUser(author);
+        post.setContent("Bài viết");
+        post.setVisibility(Post.VisibilityEnum.PUBLIC);
+        return postRepository.save(post);
+    }
+}
@@ -0,0 +1,42 @@
+package com.snsapi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GenerationalCacheTest {
+    @Test
+    void loadRacingWithInvalidateIsNotStored() {
+        GenerationalCache<Integer, String> cache = new GenerationalCache<>(10);
+
+        String loaded = cache.get(1, id -> {
+            // Dữ liệu của 1 đổi trong lúc đang nạp bản cũ.
+            cache.invalidate(1);
+            return "cũ";
+        });
+
+        assertEquals("cũ", loaded);
+        assertNull(cache.getIfPresent(1));
+        assertEquals("mới", cache.get(1, id -> "mới"));
+        assertEquals("mới", cache.getIfPresent(1));
+    }
+
+    @Test
+    void updateReplacesOrRemovesAndEvictsLeastRecentlyUsed() {
+        GenerationalCache<Integer, String> cache = new GenerationalCache<>(2);
+        cache.get(1, id -> "a");
+        cache.get(2, id -> "b");
+
+        cache.update(1, value -> value + "!");
+        cache.update(2, value -> null);
+        assertEquals("a!", cache.getIfPresent(1));
+        assertNull(cache.getIfPresent(2));
+        cache.get(3, id -> "c");
+        cache.get(4, id -> "d");
+
+        assertNull(cache.getIfPresent(1));
+        assertEquals("c", cache.getIfPresent(3));
+        assertEquals("d", cache.getIfPresent(4));
+    }
+}
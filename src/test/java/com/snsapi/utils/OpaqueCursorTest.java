@@ -0,0 +1,33 @@
+package com.snsapi.utils;
+
+import com.snsapi.exception.InvalidRequestParameterException;
+import com.snsapi.post.PostCursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OpaqueCursorTest {
+    @Test
+    void idAndPostCursorsShareOneFormat() {
+        assertEquals(42, OpaqueCursor.decodeId(OpaqueCursor.encode(42), 0));
+        assertEquals(7, OpaqueCursor.decodeId(null, 7));
+
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+        PostCursor post = PostCursor.decode(new PostCursor(createdAt, 9).encode());
+        assertEquals(createdAt, post.getCreatedAt());
+        assertEquals(9, post.getId());
+    }
+
+    // Id trần kiểu cũ, base64 hỏng, hoặc cursor của loại trang khác đều trả 400 chứ không lỗi 500.
+    @Test
+    void rejectsBareIdsAndForeignCursors() {
+        assertThrows(InvalidRequestParameterException.class, () -> OpaqueCursor.decodeId("42", 0));
+        assertThrows(InvalidRequestParameterException.class, () -> OpaqueCursor.decodeId("%%%", 0));
+        String postCursor = new PostCursor(LocalDateTime.of(2024, 5, 1, 12, 0), 9).encode();
+        assertThrows(InvalidRequestParameterException.class, () -> OpaqueCursor.decodeId(postCursor, 0));
+        assertThrows(InvalidRequestParameterException.class, () -> PostCursor.decode(OpaqueCursor.encode(9)));
+    }
+}